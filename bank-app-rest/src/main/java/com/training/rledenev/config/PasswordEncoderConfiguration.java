@@ -1,15 +1,58 @@
 package com.training.rledenev.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Configuration
 public class PasswordEncoderConfiguration {
+    private static final int MAX_CALIBRATED_STRENGTH = 16;
+
+    @Value("${bank.security.bcrypt.strength:4}")
+    private int strength;
+
+    @Value("${bank.security.bcrypt.calibration.enabled:true}")
+    private boolean calibrationEnabled;
+
+    @Value("${bank.security.bcrypt.calibration.target-time:PT0.25S}")
+    private Duration calibrationTargetTime;
 
     @Bean
     public PasswordEncoder getEncoder() {
-        return new BCryptPasswordEncoder(4);
+        int encoderStrength = calibrationEnabled ? calibrateStrength() : strength;
+        Gauge.builder("bank.security.password-hashing.strength", () -> encoderStrength)
+                .description("BCrypt cost used for new password hashes")
+                .register(Metrics.globalRegistry);
+        return new BCryptPasswordEncoder(encoderStrength);
+    }
+
+    private int calibrateStrength() {
+        timeHash(strength);
+        int calibratedStrength = strength;
+        long hashNanos = timeHash(calibratedStrength);
+        // Every extra round doubles the work, so step up while the next cost still fits the target.
+        while (calibratedStrength < MAX_CALIBRATED_STRENGTH && hashNanos * 2 <= calibrationTargetTime.toNanos()) {
+            calibratedStrength++;
+            hashNanos = timeHash(calibratedStrength);
+        }
+        log.info("Calibrated BCrypt strength to {} ({} ms per hash, target {} ms)", calibratedStrength,
+                TimeUnit.NANOSECONDS.toMillis(hashNanos), calibrationTargetTime.toMillis());
+        return calibratedStrength;
+    }
+
+    private static long timeHash(int strength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        return System.nanoTime() - start;
     }
 }
@@ -1,9 +1,11 @@
 package com.training.rledenev.controller;
 
+import com.training.rledenev.dto.TokenPairDto;
 import com.training.rledenev.dto.UserDto;
 import com.training.rledenev.entity.User;
 import com.training.rledenev.entity.enums.Role;
 import com.training.rledenev.security.jwt.JwtProvider;
+import com.training.rledenev.service.RefreshTokenService;
 import com.training.rledenev.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -15,11 +17,29 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     private final UserService userService;
     private final JwtProvider jwtProvider;
+    private final RefreshTokenService refreshTokenService;
 
     @PostMapping
     public ResponseEntity<String> auth(@RequestBody UserDto userDto) {
         User user = userService.findByEmailAndPassword(userDto.getEmail(), userDto.getPassword());
-        return ResponseEntity.ok().body(jwtProvider.generateToken(user.getEmail()));
+        return ResponseEntity.ok().body(jwtProvider.generateToken(user));
+    }
+
+    @PostMapping("/token")
+    public ResponseEntity<TokenPairDto> issueTokens(@RequestBody UserDto userDto) {
+        User user = userService.findByEmailAndPassword(userDto.getEmail(), userDto.getPassword());
+        return ResponseEntity.ok(refreshTokenService.issueTokens(user));
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenPairDto> refreshTokens(@RequestBody TokenPairDto tokenPairDto) {
+        return ResponseEntity.ok(refreshTokenService.refreshTokens(tokenPairDto.getRefreshToken()));
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revokeToken(@RequestBody TokenPairDto tokenPairDto) {
+        refreshTokenService.revokeToken(tokenPairDto.getRefreshToken());
+        return ResponseEntity.noContent().build();
     }
 
     @GetMapping
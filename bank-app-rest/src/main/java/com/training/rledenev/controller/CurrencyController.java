@@ -1,23 +1,85 @@
 package com.training.rledenev.controller;
 
+import com.training.rledenev.dto.ExchangeRateDto;
+import com.training.rledenev.dto.RateTableDto;
+import com.training.rledenev.entity.RateSnapshot;
 import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.mapper.ExchangeRateMapper;
 import com.training.rledenev.service.CurrencyService;
+import com.training.rledenev.service.ExchangeRateService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
 
 @RequiredArgsConstructor
 @RestController
 @RequestMapping(path = "/currency")
 public class CurrencyController {
+    private static final String RATES_EFFECTIVE_DATE_HEADER = "X-Rates-Effective-Date";
+    private static final String RATES_STALE_HEADER = "X-Rates-Stale";
     private final CurrencyService currencyService;
+    private final ExchangeRateService exchangeRateService;
+    private final ExchangeRateMapper exchangeRateMapper;
+
+    @Value("${bank.currency.http.max-age:PT5M}")
+    private Duration maxAge;
+
+    @GetMapping("/all")
+    public ResponseEntity<RateTableDto> getAllCurrencyRates(
+            @RequestHeader(name = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        RateSnapshot rateSnapshot = currencyService.getRateSnapshot();
+        String eTag = "\"" + rateSnapshot.getVersion() + "\"";
+        CacheControl cacheControl = CacheControl.maxAge(maxAge);
+        if (isETagMatched(ifNoneMatch, eTag)) {
+            // The client already holds this table, so nothing is mapped or serialized.
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(exchangeRateMapper.mapToDto(rateSnapshot));
+    }
 
     @GetMapping("/{currencyCode}")
-    public BigDecimal getCurrencyRate(@PathVariable(name = "currencyCode") CurrencyCode currencyCode) {
-        return currencyService.getRateOfCurrency(currencyCode.toString());
+    public ResponseEntity<BigDecimal> getCurrencyRate(@PathVariable(name = "currencyCode") CurrencyCode currencyCode) {
+        RateSnapshot rateSnapshot = currencyService.getRateSnapshot();
+        return ResponseEntity.ok()
+                .header(RATES_EFFECTIVE_DATE_HEADER, String.valueOf(rateSnapshot.getEffectiveDate()))
+                .header(RATES_STALE_HEADER, String.valueOf(rateSnapshot.isStale()))
+                .body(rateSnapshot.getRate(currencyCode));
+    }
+
+    @GetMapping("/{currencyCode}/history")
+    public List<ExchangeRateDto> getCurrencyRateHistory(
+            @PathVariable(name = "currencyCode") CurrencyCode currencyCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return exchangeRateService.getRateHistory(currencyCode, from, to);
+    }
+
+    private static boolean isETagMatched(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String trimmed = candidate.trim();
+            if (trimmed.equals("*") || trimmed.equals(eTag) || trimmed.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -40,6 +40,20 @@ public class ExceptionControllerAdvisor {
         return new ResponseEntity<>(errorData, HttpStatus.NOT_ACCEPTABLE);
     }
 
+    @ExceptionHandler({TransferQueueFullException.class, CurrencyRatesUnavailableException.class})
+    public ResponseEntity<ErrorData> handleServiceUnavailableException(RuntimeException exception) {
+        ErrorData errorData = new ErrorData(HttpStatus.SERVICE_UNAVAILABLE, LocalDateTime.now(),
+                exception.getMessage(), Arrays.toString(exception.getStackTrace()));
+        return new ResponseEntity<>(errorData, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<ErrorData> handleTooManyRequestsException(TooManyRequestsException exception) {
+        ErrorData errorData = new ErrorData(HttpStatus.TOO_MANY_REQUESTS, LocalDateTime.now(),
+                exception.getMessage(), Arrays.toString(exception.getStackTrace()));
+        return new ResponseEntity<>(errorData, HttpStatus.TOO_MANY_REQUESTS);
+    }
+
     @ExceptionHandler({NotOwnerException.class, AuthenticationException.class})
     public ResponseEntity<ErrorData> handleForbiddenException(AccessDeniedException exception) {
         ErrorData errorData = new ErrorData(HttpStatus.FORBIDDEN, LocalDateTime.now(),
@@ -47,8 +61,16 @@ public class ExceptionControllerAdvisor {
         return new ResponseEntity<>(errorData, HttpStatus.FORBIDDEN);
     }
 
-    @ExceptionHandler(UserAlreadyExistsException.class)
-    public ResponseEntity<ErrorData> handleUserAlreadyExistsException(UserAlreadyExistsException exception) {
+    @ExceptionHandler(IdempotencyKeyMismatchException.class)
+    public ResponseEntity<ErrorData> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException exception) {
+        ErrorData errorData = new ErrorData(HttpStatus.UNPROCESSABLE_ENTITY, LocalDateTime.now(),
+                exception.getMessage(), Arrays.toString(exception.getStackTrace()));
+        return new ResponseEntity<>(errorData, HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler({UserAlreadyExistsException.class, InvalidCursorException.class,
+            InvalidQuoteException.class, InvalidIdempotencyKeyException.class})
+    public ResponseEntity<ErrorData> handleBadRequestException(RuntimeException exception) {
         ErrorData errorData = new ErrorData(HttpStatus.BAD_REQUEST, LocalDateTime.now(),
                 exception.getMessage(), Arrays.toString(exception.getStackTrace()));
         return new ResponseEntity<>(errorData, HttpStatus.BAD_REQUEST);
@@ -1,12 +1,25 @@
 package com.training.rledenev.controller;
 
+import com.training.rledenev.dto.RateQuoteDto;
 import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransactionPageDto;
+import com.training.rledenev.dto.TransactionResultDto;
+import com.training.rledenev.dto.TransferStatusDto;
+import com.training.rledenev.entity.enums.ExportFormat;
+import com.training.rledenev.service.AsyncTransferService;
+import com.training.rledenev.service.RateQuoteService;
+import com.training.rledenev.service.TransactionExportService;
 import com.training.rledenev.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -14,15 +27,67 @@ import java.util.List;
 @RequestMapping(path = "/transaction")
 public class TransactionController {
     private final TransactionService transactionService;
+    private final AsyncTransferService asyncTransferService;
+    private final TransactionExportService transactionExportService;
+    private final RateQuoteService rateQuoteService;
 
     @GetMapping("/all")
     public ResponseEntity<List<TransactionDto>> getAllTransactionsOfAccount(@RequestBody String accountNumber) {
         return ResponseEntity.ok(transactionService.getAllTransactionsOfAccount(accountNumber));
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<TransactionPageDto> getTransactionsPageOfAccount(
+            @RequestParam String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(transactionService.getTransactionsPageOfAccount(accountNumber, cursor, size));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactionsOfAccount(
+            @RequestParam String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .body(transactionExportService.exportTransactionsOfAccount(accountNumber, from, to, format));
+    }
+
+    @PostMapping("/quote")
+    public ResponseEntity<RateQuoteDto> createQuote(@RequestBody TransactionDto transactionDto) {
+        return ResponseEntity.ok(rateQuoteService.createQuote(transactionDto));
+    }
+
     @PostMapping("/create")
-    public ResponseEntity<Void> createTransaction(@RequestBody TransactionDto transactionDto) {
-        transactionService.createTransaction(transactionDto);
+    public ResponseEntity<TransferStatusDto> createTransaction(@RequestBody TransactionDto transactionDto,
+                                                               @RequestHeader(value = "Idempotency-Key",
+                                                                       required = false) String idempotencyKey,
+                                                               @RequestParam(value = "async", defaultValue = "false")
+                                                               boolean async) {
+        if (async) {
+            return ResponseEntity.accepted().body(asyncTransferService.submitTransaction(transactionDto,
+                    idempotencyKey));
+        }
+        if (idempotencyKey == null) {
+            transactionService.createTransaction(transactionDto);
+        } else {
+            transactionService.createTransaction(transactionDto, idempotencyKey);
+        }
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<TransactionResultDto>> createTransactions(
+            @RequestBody List<TransactionDto> transactionDtos) {
+        return ResponseEntity.ok(transactionService.createTransactions(transactionDtos));
+    }
+
+    @GetMapping("/status/{transferId}")
+    public ResponseEntity<TransferStatusDto> getTransferStatus(@PathVariable String transferId,
+                                                               @RequestParam(value = "waitMillis", defaultValue = "0")
+                                                               long waitMillis) {
+        return ResponseEntity.ok(asyncTransferService.getTransferStatus(transferId, Duration.ofMillis(waitMillis)));
+    }
 }
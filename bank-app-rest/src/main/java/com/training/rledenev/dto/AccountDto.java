@@ -1,5 +1,6 @@
 package com.training.rledenev.dto;
 
+import com.training.rledenev.entity.Money;
 import lombok.Data;
 
 import java.time.LocalDate;
@@ -15,7 +16,7 @@ public class AccountDto {
     private LocalDate paymentTerm;
     private String type;
     private String status;
-    private Double balance;
+    private Money balance;
     private String currencyCode;
     private String currencyName;
 }
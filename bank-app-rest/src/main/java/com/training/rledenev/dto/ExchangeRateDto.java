@@ -0,0 +1,13 @@
+package com.training.rledenev.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+public class ExchangeRateDto {
+    private String currencyCode;
+    private LocalDate effectiveDate;
+    private BigDecimal rate;
+}
@@ -0,0 +1,20 @@
+package com.training.rledenev.dto;
+
+import com.training.rledenev.entity.Money;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+public class RateQuoteDto {
+    private String quoteId;
+    private String currencyCode;
+    private String debitCurrencyCode;
+    private BigDecimal debitConversionFactor;
+    private Money debitBalanceDifference;
+    private String creditCurrencyCode;
+    private BigDecimal creditConversionFactor;
+    private Money creditBalanceDifference;
+    private LocalDateTime expiresAt;
+}
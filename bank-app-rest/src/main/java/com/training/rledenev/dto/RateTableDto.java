@@ -0,0 +1,15 @@
+package com.training.rledenev.dto;
+
+import com.training.rledenev.entity.enums.CurrencyCode;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+public class RateTableDto {
+    private LocalDate effectiveDate;
+    private boolean stale;
+    private Map<CurrencyCode, BigDecimal> rates;
+}
@@ -0,0 +1,13 @@
+package com.training.rledenev.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenPairDto {
+    private String accessToken;
+    private String refreshToken;
+}
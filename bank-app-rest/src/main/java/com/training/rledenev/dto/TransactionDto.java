@@ -1,5 +1,6 @@
 package com.training.rledenev.dto;
 
+import com.training.rledenev.entity.Money;
 import lombok.Data;
 
 import java.util.Date;
@@ -8,11 +9,12 @@ import java.util.Date;
 public class TransactionDto {
     private String debitAccountNumber;
     private String creditAccountNumber;
-    private Double amount;
+    private Money amount;
     private String currencyCode;
-    private Double debitBalanceDifference;
-    private Double creditBalanceDifference;
+    private Money debitBalanceDifference;
+    private Money creditBalanceDifference;
     private String type;
     private String description;
     private Date createdAt;
+    private String quoteId;
 }
@@ -0,0 +1,23 @@
+package com.training.rledenev.dto;
+
+import com.training.rledenev.entity.enums.TransferStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionResultDto {
+    private Integer index;
+    private String status;
+    private String message;
+
+    public static TransactionResultDto completed(int index) {
+        return new TransactionResultDto(index, TransferStatus.COMPLETED.toString(), null);
+    }
+
+    public static TransactionResultDto failed(int index, String message) {
+        return new TransactionResultDto(index, TransferStatus.FAILED.toString(), message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.training.rledenev.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferStatusDto {
+    private String transferId;
+    private String status;
+    private String message;
+}
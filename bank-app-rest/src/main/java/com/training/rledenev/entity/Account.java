@@ -2,8 +2,10 @@ package com.training.rledenev.entity;
 
 import com.training.rledenev.entity.enums.CurrencyCode;
 import com.training.rledenev.entity.enums.Status;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Formula;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -22,7 +24,9 @@ import java.util.Set;
         subgraphs = @NamedSubgraph(name = "agreement", attributeNodes = @NamedAttributeNode(value = "product")))
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "account-id-generator")
+    @TableGenerator(name = "account-id-generator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "accounts", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false)
     private Long id;
 
@@ -58,8 +62,17 @@ public class Account {
     @Column(name = "status")
     private Status status;
 
-    @Column(name = "balance")
-    private BigDecimal balance;
+    @Column(name = "balance", updatable = false)
+    private Money balance;
+
+    @Column(name = "snapshot_at", updatable = false)
+    private LocalDateTime snapshotAt;
+
+    @Formula("COALESCE(balance, 0) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e WHERE e.account_id = id " +
+            "AND e.snapshot_no IS NULL), 0)")
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private BigDecimal currentBalance;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "currency_code")
@@ -71,6 +84,14 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    public Money getCurrentBalance() {
+        return currentBalance == null ? null : Money.of(currentBalance);
+    }
+
+    public void setCurrentBalance(Money currentBalance) {
+        this.currentBalance = currentBalance == null ? null : currentBalance.toBigDecimal();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -5,7 +5,6 @@ import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Objects;
@@ -39,7 +38,7 @@ public class Agreement {
     private Status status;
 
     @Column(name = "sum")
-    private BigDecimal sum;
+    private Money sum;
 
     @Column(name = "start_date")
     private LocalDate startDate;
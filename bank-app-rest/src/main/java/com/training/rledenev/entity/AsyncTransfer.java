@@ -0,0 +1,71 @@
+package com.training.rledenev.entity;
+
+import com.training.rledenev.entity.enums.TransferStatus;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "async_transfers")
+@Getter
+@Setter
+public class AsyncTransfer {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "async-transfer-id-generator")
+    @TableGenerator(name = "async-transfer-id-generator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "async_transfers", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @Column(name = "transfer_id", updatable = false)
+    private String transferId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", updatable = false)
+    private User user;
+
+    @Column(name = "idempotency_key", updatable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", updatable = false)
+    private String requestHash;
+
+    @Column(name = "request", updatable = false)
+    private String request;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private TransferStatus status;
+
+    @Column(name = "message")
+    private String message;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AsyncTransfer that = (AsyncTransfer) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncTransfer{" +
+                "id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package com.training.rledenev.entity;
+
+import com.training.rledenev.entity.enums.CurrencyCode;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "exchange_rates")
+@Getter
+@Setter
+public class ExchangeRate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "exchange-rate-id-generator")
+    @TableGenerator(name = "exchange-rate-id-generator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "exchange_rates", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "currency_code", updatable = false)
+    private CurrencyCode currencyCode;
+
+    @Column(name = "effective_date", updatable = false)
+    private LocalDate effectiveDate;
+
+    @Column(name = "rate", updatable = false)
+    private BigDecimal rate;
+
+    @Column(name = "fetched_at", updatable = false)
+    private LocalDateTime fetchedAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ExchangeRate that = (ExchangeRate) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "ExchangeRate{" +
+                "id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,58 @@
+package com.training.rledenev.entity;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "idempotency_keys")
+@Getter
+@Setter
+public class IdempotencyKey {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "idempotency-key-id-generator")
+    @TableGenerator(name = "idempotency-key-id-generator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "idempotency_keys", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", referencedColumnName = "id", updatable = false)
+    private User user;
+
+    @Column(name = "idempotency_key", updatable = false)
+    private String idempotencyKey;
+
+    @Column(name = "request_hash", updatable = false)
+    private String requestHash;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", referencedColumnName = "id")
+    private Transaction transaction;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyKey that = (IdempotencyKey) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "IdempotencyKey{" +
+                "id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,60 @@
+package com.training.rledenev.entity;
+
+import com.training.rledenev.entity.enums.LedgerEntryType;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "ledger_entries")
+@Getter
+@Setter
+public class LedgerEntry {
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ledger-entry-id-generator")
+    @TableGenerator(name = "ledger-entry-id-generator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "ledger_entries", allocationSize = 50)
+    @Column(name = "id", nullable = false, updatable = false)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", referencedColumnName = "id", updatable = false)
+    private Account account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "transaction_id", referencedColumnName = "id", updatable = false)
+    private Transaction transaction;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", updatable = false)
+    private LedgerEntryType type;
+
+    @Column(name = "amount", updatable = false)
+    private Money amount;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        LedgerEntry that = (LedgerEntry) o;
+        return Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEntry{" +
+                "id=" + id +
+                '}';
+    }
+}
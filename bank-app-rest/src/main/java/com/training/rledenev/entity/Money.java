@@ -0,0 +1,119 @@
+package com.training.rledenev.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.training.rledenev.entity.enums.CurrencyCode;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+public final class Money implements Comparable<Money>, Serializable {
+    public static final int SCALE = 4;
+    public static final Money ZERO = new Money(0L);
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+    private static final long ONE = POWERS_OF_TEN[SCALE];
+
+    private final long units;
+
+    private Money(long units) {
+        this.units = units;
+    }
+
+    public static Money ofUnits(long units) {
+        return units == 0L ? ZERO : new Money(units);
+    }
+
+    @JsonCreator
+    public static Money of(BigDecimal value) {
+        return ofUnits(value.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Money of(String value) {
+        return of(new BigDecimal(value));
+    }
+
+    public static long factorOf(BigDecimal dividend, BigDecimal divisor) {
+        return dividend.divide(divisor, SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public Money add(Money other) {
+        return ofUnits(Math.addExact(units, other.units));
+    }
+
+    public Money subtract(Money other) {
+        return ofUnits(Math.subtractExact(units, other.units));
+    }
+
+    public Money negate() {
+        return ofUnits(Math.negateExact(units));
+    }
+
+    public Money multiply(long factorUnits) {
+        if (factorUnits == ONE) {
+            return this;
+        }
+        long high = Math.multiplyHigh(units, factorUnits);
+        long low = units * factorUnits;
+        if (high != low >> 63) {
+            // The product does not fit in a long; this only happens for amounts far outside the column range.
+            return of(BigDecimal.valueOf(units, SCALE).multiply(BigDecimal.valueOf(factorUnits, SCALE)));
+        }
+        return ofUnits(divideHalfUp(low, ONE));
+    }
+
+    public Money roundTo(CurrencyCode currencyCode) {
+        long divisor = POWERS_OF_TEN[SCALE - currencyCode.getMinorUnits()];
+        return divisor == 1L ? this : ofUnits(divideHalfUp(units, divisor) * divisor);
+    }
+
+    public int signum() {
+        return Long.signum(units);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    @JsonValue
+    public BigDecimal toPlainBigDecimal() {
+        BigDecimal value = toBigDecimal().stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(units, other.units);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Money money = (Money) o;
+        return units == money.units;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(units);
+    }
+
+    @Override
+    public String toString() {
+        return toPlainBigDecimal().toPlainString();
+    }
+
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+}
@@ -0,0 +1,44 @@
+package com.training.rledenev.entity;
+
+import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.exception.InvalidQuoteException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Getter
+@RequiredArgsConstructor
+public final class RateQuote {
+    private final String quoteId;
+    private final CurrencyCode currencyCode;
+    private final CurrencyCode debitCurrencyCode;
+    private final long debitConversionFactor;
+    private final CurrencyCode creditCurrencyCode;
+    private final long creditConversionFactor;
+    private final LocalDateTime expiresAt;
+
+    public long getConversionFactor(CurrencyCode from, CurrencyCode to) {
+        if (from == currencyCode) {
+            if (to == debitCurrencyCode) {
+                return debitConversionFactor;
+            }
+            if (to == creditCurrencyCode) {
+                return creditConversionFactor;
+            }
+        }
+        throw new InvalidQuoteException("Quote " + quoteId + " does not cover conversion from " + from + " to " + to);
+    }
+
+    public boolean isExpired() {
+        return !expiresAt.isAfter(LocalDateTime.now());
+    }
+
+    @Override
+    public String toString() {
+        return "RateQuote{" +
+                "quoteId=" + quoteId +
+                ", expiresAt=" + expiresAt +
+                '}';
+    }
+}
@@ -0,0 +1,140 @@
+package com.training.rledenev.entity;
+
+import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.exception.RequestApiException;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+public final class RateSnapshot {
+    private static final CurrencyCode[] CURRENCY_CODES = CurrencyCode.values();
+    private static final long NO_FACTOR = -1L;
+    private final Map<CurrencyCode, BigDecimal> rates;
+    private final LocalDate effectiveDate;
+    private final LocalDateTime fetchedAt;
+    private final boolean stale;
+    // Changes whenever the served table does, so it can back a strong ETag.
+    private final String version;
+    // Money factors for every (from, to) pair, at index from.ordinal() * CURRENCY_CODES.length + to.ordinal().
+    private final long[] conversionFactors;
+
+    public RateSnapshot(Map<CurrencyCode, BigDecimal> rates, LocalDate effectiveDate, LocalDateTime fetchedAt) {
+        this(rates, effectiveDate, fetchedAt, false);
+    }
+
+    public RateSnapshot(Map<CurrencyCode, BigDecimal> rates, LocalDate effectiveDate, LocalDateTime fetchedAt,
+                        boolean stale) {
+        EnumMap<CurrencyCode, BigDecimal> copy = new EnumMap<>(CurrencyCode.class);
+        copy.putAll(rates);
+        copy.put(CurrencyCode.PLN, BigDecimal.ONE);
+        this.rates = Collections.unmodifiableMap(copy);
+        this.effectiveDate = effectiveDate;
+        this.fetchedAt = fetchedAt;
+        this.stale = stale;
+        this.version = getVersion(this.rates, effectiveDate, stale);
+        this.conversionFactors = getConversionFactors(this.rates);
+    }
+
+    private RateSnapshot(RateSnapshot rateSnapshot, LocalDateTime fetchedAt, boolean stale) {
+        this.rates = rateSnapshot.rates;
+        this.effectiveDate = rateSnapshot.effectiveDate;
+        this.fetchedAt = fetchedAt;
+        this.stale = stale;
+        this.version = stale == rateSnapshot.stale ? rateSnapshot.version
+                : getVersion(rateSnapshot.rates, rateSnapshot.effectiveDate, stale);
+        this.conversionFactors = rateSnapshot.conversionFactors;
+    }
+
+    public BigDecimal getRate(CurrencyCode currencyCode) {
+        BigDecimal rate = rates.get(currencyCode);
+        if (rate == null) {
+            throw new RequestApiException("No rate of " + currencyCode + " in table of " + effectiveDate);
+        }
+        return rate;
+    }
+
+    public long getConversionFactor(CurrencyCode from, CurrencyCode to) {
+        long factor = conversionFactors[from.ordinal() * CURRENCY_CODES.length + to.ordinal()];
+        if (factor == NO_FACTOR) {
+            throw new RequestApiException("No rate of " + (rates.containsKey(from) ? to : from) + " in table of "
+                    + effectiveDate);
+        }
+        return factor;
+    }
+
+    public Map<CurrencyCode, BigDecimal> getRates() {
+        return rates;
+    }
+
+    public LocalDate getEffectiveDate() {
+        return effectiveDate;
+    }
+
+    public LocalDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public RateSnapshot withFetchedAt(LocalDateTime fetchedAt) {
+        return new RateSnapshot(this, fetchedAt, stale);
+    }
+
+    public RateSnapshot asStale() {
+        return stale ? this : new RateSnapshot(this, fetchedAt, true);
+    }
+
+    private static String getVersion(Map<CurrencyCode, BigDecimal> rates, LocalDate effectiveDate, boolean stale) {
+        // The rates iterate in currency order, so equal tables always hash the same code:rate pairs.
+        StringBuilder pairs = new StringBuilder();
+        rates.forEach((currencyCode, rate) -> pairs.append(currencyCode).append(':')
+                .append(rate.stripTrailingZeros().toPlainString()).append(';'));
+        String version = effectiveDate + "-" + getDigest(pairs.toString());
+        return stale ? version + "-stale" : version;
+    }
+
+    private static String getDigest(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static long[] getConversionFactors(Map<CurrencyCode, BigDecimal> rates) {
+        long[] factors = new long[CURRENCY_CODES.length * CURRENCY_CODES.length];
+        for (CurrencyCode from : CURRENCY_CODES) {
+            for (CurrencyCode to : CURRENCY_CODES) {
+                BigDecimal fromRate = rates.get(from);
+                BigDecimal toRate = rates.get(to);
+                factors[from.ordinal() * CURRENCY_CODES.length + to.ordinal()] = fromRate == null || toRate == null
+                        ? NO_FACTOR
+                        : Money.factorOf(fromRate, toRate);
+            }
+        }
+        return factors;
+    }
+
+    @Override
+    public String toString() {
+        return "RateSnapshot{" +
+                "effectiveDate=" + effectiveDate +
+                ", stale=" + stale +
+                '}';
+    }
+}
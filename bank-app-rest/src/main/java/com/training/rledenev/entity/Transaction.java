@@ -6,7 +6,6 @@ import lombok.Getter;
 import lombok.Setter;
 
 import javax.persistence.*;
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 
@@ -20,7 +19,9 @@ import java.util.Objects;
         subgraphs = @NamedSubgraph(name = "account-agreement", attributeNodes = @NamedAttributeNode(value = "agreement")))
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "transaction-id-generator")
+    @TableGenerator(name = "transaction-id-generator", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "transactions", allocationSize = 50)
     @Column(name = "id", nullable = false, updatable = false)
     private Long id;
 
@@ -37,17 +38,17 @@ public class Transaction {
     private TransactionType type;
 
     @Column(name = "amount")
-    private BigDecimal amount;
+    private Money amount;
 
     @Enumerated(EnumType.STRING)
     @Column(name = "currency_code")
     private CurrencyCode currencyCode;
 
     @Column(name = "debit_balance_difference")
-    private BigDecimal debitBalanceDifference;
+    private Money debitBalanceDifference;
 
     @Column(name = "credit_balance_difference")
-    private BigDecimal creditBalanceDifference;
+    private Money creditBalanceDifference;
 
     @Column(name = "description")
     private String description;
@@ -2,6 +2,7 @@ package com.training.rledenev.entity;
 
 import com.training.rledenev.entity.enums.Role;
 import com.training.rledenev.entity.enums.Status;
+import com.training.rledenev.entity.listener.UserEntityListener;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -15,6 +16,7 @@ import static javax.persistence.CascadeType.*;
 import static javax.persistence.CascadeType.REFRESH;
 
 @Entity
+@EntityListeners(UserEntityListener.class)
 @Table(name = "users")
 @Getter
 @Setter
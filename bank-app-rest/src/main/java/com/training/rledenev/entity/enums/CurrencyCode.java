@@ -4,27 +4,29 @@ import lombok.Getter;
 
 @Getter
 public enum CurrencyCode {
-    PLN("Zloty"),
-    USD("US Dollar"),
-    EUR("Euro"),
-    GBP("Pound Sterling"),
-    CHF("Swiss Franc"),
-    HUF("Forint"),
-    UAH("Hryvnia"),
-    CZK("Czech Koruna"),
-    DKK("Danish Krone"),
-    NOK("Norwegian Krone"),
-    SEK("Swedish Krona"),
-    CNY("Yuan Renminbi"),
-    JPY("Yen"),
-    ISK("Iceland Krona"),
-    ILS("New Israeli Sheqel"),
-    TRY("Turkish Lira");
+    PLN("Zloty", 2),
+    USD("US Dollar", 2),
+    EUR("Euro", 2),
+    GBP("Pound Sterling", 2),
+    CHF("Swiss Franc", 2),
+    HUF("Forint", 2),
+    UAH("Hryvnia", 2),
+    CZK("Czech Koruna", 2),
+    DKK("Danish Krone", 2),
+    NOK("Norwegian Krone", 2),
+    SEK("Swedish Krona", 2),
+    CNY("Yuan Renminbi", 2),
+    JPY("Yen", 0),
+    ISK("Iceland Krona", 0),
+    ILS("New Israeli Sheqel", 2),
+    TRY("Turkish Lira", 2);
 
     private final String currencyName;
+    private final int minorUnits;
 
-    CurrencyCode(String currencyName) {
+    CurrencyCode(String currencyName, int minorUnits) {
         this.currencyName = currencyName;
+        this.minorUnits = minorUnits;
     }
 
     @Override
@@ -0,0 +1,15 @@
+package com.training.rledenev.entity.enums;
+
+import lombok.Getter;
+
+@Getter
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"),
+    CSV("text/csv");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+}
@@ -0,0 +1,6 @@
+package com.training.rledenev.entity.enums;
+
+public enum LedgerEntryType {
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,7 @@
+package com.training.rledenev.entity.enums;
+
+public enum TransferStatus {
+    PENDING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,42 @@
+package com.training.rledenev.entity.listener;
+
+import com.training.rledenev.entity.User;
+import com.training.rledenev.security.ChangedPrincipals;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+@RequiredArgsConstructor
+@Component
+public class UserEntityListener {
+    private final ChangedPrincipals changedPrincipals;
+
+    @PostUpdate
+    public void recordChange(User user) {
+        afterCommit(() -> changedPrincipals.recordChange(user));
+    }
+
+    @PostRemove
+    public void recordRemoval(User user) {
+        Long userId = user.getId();
+        afterCommit(() -> changedPrincipals.recordRemoval(userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        // A rolled back change must not refuse tokens that still match the stored user.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,7 @@
+package com.training.rledenev.exception;
+
+public class CurrencyRatesUnavailableException extends RuntimeException {
+    public CurrencyRatesUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.training.rledenev.exception;
+
+public class InvalidQuoteException extends RuntimeException {
+    public InvalidQuoteException(String message) {
+        super(message);
+    }
+}
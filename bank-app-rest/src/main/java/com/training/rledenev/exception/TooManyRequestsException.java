@@ -0,0 +1,7 @@
+package com.training.rledenev.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
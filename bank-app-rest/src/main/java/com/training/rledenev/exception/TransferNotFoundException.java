@@ -0,0 +1,7 @@
+package com.training.rledenev.exception;
+
+public class TransferNotFoundException extends EntityNotFoundException {
+    public TransferNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.training.rledenev.exception;
+
+public class TransferQueueFullException extends RuntimeException {
+    public TransferQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -23,6 +23,7 @@ public interface AccountMapper extends MapperDefault {
     @Mapping(source = "currencyCode", target = "currencyName", qualifiedByName = "getCurrencyNameFromCode")
     @Mapping(source = "agreement.product.type", target = "type")
     @Mapping(source = "agreement.startDate", target = "startDate")
+    @Mapping(source = "currentBalance", target = "balance")
     AccountDto mapToDto(Account account);
 
     @IterableMapping(qualifiedByName = "toAccountDto")
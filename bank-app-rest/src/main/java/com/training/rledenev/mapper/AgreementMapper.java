@@ -9,12 +9,12 @@ import java.util.List;
 @Mapper(componentModel = "spring")
 public interface AgreementMapper extends MapperDefault {
 
-    @Mapping(source = "sum", target = "sum", qualifiedByName = "doubleToBigDecimal",
+    @Mapping(source = "sum", target = "sum", qualifiedByName = "doubleToMoney",
             nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS)
     Agreement mapToEntity(AgreementDto agreementDto);
 
     @Named("toAgreementDto")
-    @Mapping(source = "sum", target = "sum")
+    @Mapping(source = "sum", target = "sum", qualifiedByName = "moneyToDouble")
     @Mapping(source = "product.interestRate", target = "interestRate")
     @Mapping(source = "product.type", target = "productType")
     @Mapping(source = "product.name", target = "productName")
@@ -0,0 +1,19 @@
+package com.training.rledenev.mapper;
+
+import com.training.rledenev.dto.ExchangeRateDto;
+import com.training.rledenev.dto.RateTableDto;
+import com.training.rledenev.entity.ExchangeRate;
+import com.training.rledenev.entity.RateSnapshot;
+import org.mapstruct.Mapper;
+
+import java.util.List;
+
+@Mapper(componentModel = "spring")
+public interface ExchangeRateMapper {
+
+    ExchangeRateDto mapToDto(ExchangeRate exchangeRate);
+
+    List<ExchangeRateDto> mapToListDto(List<ExchangeRate> exchangeRates);
+
+    RateTableDto mapToDto(RateSnapshot rateSnapshot);
+}
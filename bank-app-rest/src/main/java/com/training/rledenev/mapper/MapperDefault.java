@@ -1,5 +1,6 @@
 package com.training.rledenev.mapper;
 
+import com.training.rledenev.entity.Money;
 import org.mapstruct.Named;
 
 import java.math.BigDecimal;
@@ -11,8 +12,13 @@ public interface MapperDefault {
         return value.toUpperCase().replaceAll("\\s", "_");
     }
 
-    @Named("doubleToBigDecimal")
-    default BigDecimal doubleToBigDecimal(Double value) {
-        return BigDecimal.valueOf(value);
+    @Named("doubleToMoney")
+    default Money doubleToMoney(Double value) {
+        return Money.of(BigDecimal.valueOf(value));
+    }
+
+    @Named("moneyToDouble")
+    default Double moneyToDouble(Money value) {
+        return value == null ? null : value.toBigDecimal().doubleValue();
     }
 }
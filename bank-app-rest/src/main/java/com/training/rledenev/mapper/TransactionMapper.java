@@ -19,10 +19,10 @@ public interface TransactionMapper extends MapperDefault {
     @Mapping(source = "debitAccount.number", target = "debitAccountNumber")
     @Mapping(source = "creditAccount.number", target = "creditAccountNumber")
     @Mapping(source = "createdAt", target = "createdAt", qualifiedByName = "mapToDate")
+    @Mapping(target = "quoteId", ignore = true)
     TransactionDto mapToDto(Transaction transaction);
 
     @Mapping(source = "type", target = "type", qualifiedByName = "stringToEnumName")
-    @Mapping(source = "amount", target = "amount", qualifiedByName = "doubleToBigDecimal")
     @Mapping(source = "currencyCode", target = "currencyCode", qualifiedByName = "stringToEnumName")
     Transaction mapToEntity(TransactionDto transactionDto);
 
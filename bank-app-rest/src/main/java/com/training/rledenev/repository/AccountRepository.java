@@ -4,10 +4,14 @@ import com.training.rledenev.entity.Account;
 import com.training.rledenev.entity.User;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +26,31 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     @Query("select a from Account a where a.number = :number")
     Optional<Account> getByNumber(@Param("number") String number);
+
+    @Query("select a from Account a where a.number in :numbers")
+    List<Account> getAllByNumbers(@Param("numbers") Collection<String> numbers);
+
+    @Query(value = "SELECT a.id FROM accounts a WHERE a.id = :id FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("id") Long id);
+
+    @Query(value = "SELECT COALESCE(a.balance, 0) + COALESCE((SELECT SUM(e.amount) FROM ledger_entries e " +
+            "WHERE e.account_id = a.id AND e.snapshot_no IS NULL), 0) FROM accounts a WHERE a.id = :id",
+            nativeQuery = true)
+    BigDecimal getCurrentBalanceById(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE accounts a SET a.balance = COALESCE(a.balance, 0) + :amount WHERE a.id = :id",
+            nativeQuery = true)
+    int addToBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query(value = "UPDATE accounts a SET a.snapshot_no = a.snapshot_no + 1, a.snapshot_at = :snapshotAt " +
+            "WHERE a.id = :id", nativeQuery = true)
+    int startSnapshot(@Param("id") Long id, @Param("snapshotAt") LocalDateTime snapshotAt);
+
+    @Modifying
+    @Query(value = "UPDATE accounts a SET a.balance = COALESCE(a.balance, 0) + COALESCE((SELECT SUM(e.amount) " +
+            "FROM ledger_entries e WHERE e.account_id = a.id AND e.snapshot_no = a.snapshot_no), 0) " +
+            "WHERE a.id = :id", nativeQuery = true)
+    int foldSnapshot(@Param("id") Long id);
 }
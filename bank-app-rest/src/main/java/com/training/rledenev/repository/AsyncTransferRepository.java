@@ -0,0 +1,45 @@
+package com.training.rledenev.repository;
+
+import com.training.rledenev.entity.AsyncTransfer;
+import com.training.rledenev.entity.enums.TransferStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AsyncTransferRepository extends JpaRepository<AsyncTransfer, Long> {
+    @Query("select t from AsyncTransfer t where t.transferId = :transferId and t.user.id = :userId")
+    Optional<AsyncTransfer> findByTransferIdOfUser(@Param("transferId") String transferId,
+                                                   @Param("userId") Long userId);
+
+    Optional<AsyncTransfer> findByTransferId(String transferId);
+
+    @Query("select t from AsyncTransfer t where t.user.id = :userId and t.idempotencyKey = :key")
+    Optional<AsyncTransfer> findByIdempotencyKeyOfUser(@Param("userId") Long userId, @Param("key") String key);
+
+    @Query("select t from AsyncTransfer t join fetch t.user where t.status = :status and t.createdAt < :createdAt " +
+            "and t.id > :lastId order by t.id")
+    List<AsyncTransfer> findAllByStatusCreatedBefore(@Param("status") TransferStatus status,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("lastId") Long lastId, Pageable pageable);
+
+    @Modifying
+    @Query("update AsyncTransfer t set t.status = :status, t.message = :message, t.updatedAt = :updatedAt " +
+            "where t.transferId = :transferId and t.status = :pendingStatus")
+    int updatePendingStatus(@Param("transferId") String transferId,
+                            @Param("pendingStatus") TransferStatus pendingStatus,
+                            @Param("status") TransferStatus status, @Param("message") String message,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying
+    @Query("delete from AsyncTransfer t where t.status <> :pendingStatus and t.updatedAt < :updatedAt")
+    int deleteAllFinishedBefore(@Param("pendingStatus") TransferStatus pendingStatus,
+                                @Param("updatedAt") LocalDateTime updatedAt);
+}
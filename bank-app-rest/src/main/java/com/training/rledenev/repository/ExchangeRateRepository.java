@@ -0,0 +1,27 @@
+package com.training.rledenev.repository;
+
+import com.training.rledenev.entity.ExchangeRate;
+import com.training.rledenev.entity.enums.CurrencyCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+    boolean existsByEffectiveDate(LocalDate effectiveDate);
+
+    @Query("select max(r.effectiveDate) from ExchangeRate r")
+    Optional<LocalDate> findLatestEffectiveDate();
+
+    List<ExchangeRate> getAllByEffectiveDate(LocalDate effectiveDate);
+
+    @Query("select r from ExchangeRate r where r.currencyCode = :currencyCode " +
+            "and r.effectiveDate between :from and :to order by r.effectiveDate")
+    List<ExchangeRate> getRateHistory(@Param("currencyCode") CurrencyCode currencyCode,
+                                      @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,25 @@
+package com.training.rledenev.repository;
+
+import com.training.rledenev.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+    @Query("select k from IdempotencyKey k where k.user.id = :userId and k.idempotencyKey = :key " +
+            "and k.transaction is not null")
+    Optional<IdempotencyKey> findCompletedKey(@Param("userId") Long userId, @Param("key") String key);
+
+    @Query("select count(k) > 0 from IdempotencyKey k where k.user.id = :userId and k.idempotencyKey = :key")
+    boolean isKeyReserved(@Param("userId") Long userId, @Param("key") String key);
+
+    @Modifying
+    @Query("delete from IdempotencyKey k where k.createdAt < :createdAt")
+    int deleteAllCreatedBefore(@Param("createdAt") LocalDateTime createdAt);
+}
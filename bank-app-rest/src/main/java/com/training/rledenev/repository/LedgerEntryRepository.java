@@ -0,0 +1,23 @@
+package com.training.rledenev.repository;
+
+import com.training.rledenev.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    @Query(value = "SELECT DISTINCT e.account_id FROM ledger_entries e WHERE e.snapshot_no IS NULL",
+            nativeQuery = true)
+    List<Number> findAccountIdsWithUnfoldedEntries();
+
+    @Modifying
+    @Query(value = "UPDATE ledger_entries e SET e.snapshot_no = (SELECT a.snapshot_no FROM accounts a " +
+            "WHERE a.id = e.account_id) WHERE e.account_id = :accountId AND e.snapshot_no IS NULL",
+            nativeQuery = true)
+    int markUnfoldedEntries(@Param("accountId") Long accountId);
+}
@@ -7,15 +7,62 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
 
+    @Query(value = "SELECT h.id FROM (" +
+            "SELECT t.id, t.created_at FROM transactions t WHERE t.debit_account_id = :accountId " +
+            "UNION ALL " +
+            "SELECT t.id, t.created_at FROM transactions t WHERE t.credit_account_id = :accountId " +
+            "AND t.debit_account_id <> :accountId" +
+            ") h ORDER BY h.created_at DESC, h.id", nativeQuery = true)
+    List<Number> getTransactionIdsOfAccount(@Param("accountId") Long accountId);
+
+    @Query(value = "SELECT h.id FROM (" +
+            "(SELECT t.id, t.created_at FROM transactions t WHERE t.debit_account_id = :accountId " +
+            "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT t.id, t.created_at FROM transactions t WHERE t.credit_account_id = :accountId " +
+            "AND t.debit_account_id <> :accountId " +
+            "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+            ") h ORDER BY h.created_at DESC, h.id DESC LIMIT :limit", nativeQuery = true)
+    List<Number> getFirstTransactionIdsPageOfAccount(@Param("accountId") Long accountId, @Param("limit") int limit);
+
+    @Query(value = "SELECT h.id FROM (" +
+            "(SELECT t.id, t.created_at FROM transactions t WHERE t.debit_account_id = :accountId " +
+            "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT t.id, t.created_at FROM transactions t WHERE t.credit_account_id = :accountId " +
+            "AND t.debit_account_id <> :accountId " +
+            "AND (t.created_at < :createdAt OR (t.created_at = :createdAt AND t.id < :id)) " +
+            "ORDER BY t.created_at DESC, t.id DESC LIMIT :limit)" +
+            ") h ORDER BY h.created_at DESC, h.id DESC LIMIT :limit", nativeQuery = true)
+    List<Number> getTransactionIdsPageOfAccountAfter(@Param("accountId") Long accountId,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id, @Param("limit") int limit);
+
     @EntityGraph(value = "transaction-account-graph")
-    @Query("select distinct t from Transaction t " +
-            "where t.creditAccount.number = :accountNumber " +
-            "or t.debitAccount.number = :accountNumber " +
-            "order by t.createdAt desc")
-    List<Transaction> getAllTransactionsWithAccountNumber(@Param("accountNumber") String accountNumber);
+    @Query("select t from Transaction t where t.id in :ids")
+    List<Transaction> getAllWithAccountsByIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT h.id FROM (" +
+            "(SELECT t.id, t.created_at FROM transactions t WHERE t.debit_account_id = :accountId " +
+            "AND t.created_at < :to " +
+            "AND (t.created_at > :createdAt OR (t.created_at = :createdAt AND t.id > :id)) " +
+            "ORDER BY t.created_at, t.id LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT t.id, t.created_at FROM transactions t WHERE t.credit_account_id = :accountId " +
+            "AND t.debit_account_id <> :accountId AND t.created_at < :to " +
+            "AND (t.created_at > :createdAt OR (t.created_at = :createdAt AND t.id > :id)) " +
+            "ORDER BY t.created_at, t.id LIMIT :limit)" +
+            ") h ORDER BY h.created_at, h.id LIMIT :limit", nativeQuery = true)
+    List<Number> getTransactionIdsOfAccountBetween(@Param("accountId") Long accountId,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("id") Long id, @Param("to") LocalDateTime to,
+                                                   @Param("limit") int limit);
 }
@@ -0,0 +1,51 @@
+package com.training.rledenev.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.training.rledenev.entity.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Objects;
+
+@Component
+public class ChangedPrincipals {
+    @Value("${bank.security.access-token.ttl:PT15M}")
+    private Duration accessTokenTtl;
+
+    @Value("${bank.security.changed-principals.maximum-size:10000}")
+    private long maximumSize;
+
+    // Current email, role and status of users changed within the last access token lifetime, by user id. Older
+    // changes can only contradict tokens that have expired anyway, so they are dropped. Changes are recorded in
+    // the JVM that committed them, so revocation is per instance: another instance keeps accepting the old
+    // tokens until they expire, which the short access token lifetime bounds.
+    private Cache<Long, CustomUserDetails> principals;
+
+    @PostConstruct
+    void initPrincipals() {
+        principals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(accessTokenTtl)
+                .build();
+    }
+
+    public void recordChange(User user) {
+        principals.put(user.getId(), new CustomUserDetails(user.getId(), user.getEmail(), user.getRole(),
+                user.getStatus()));
+    }
+
+    public void recordRemoval(Long userId) {
+        // No claims match a principal without email, role and status, so every token of the user is refused.
+        principals.put(userId, new CustomUserDetails(userId, null, null, null));
+    }
+
+    public boolean isCurrent(CustomUserDetails claimed) {
+        CustomUserDetails current = principals.getIfPresent(claimed.getId());
+        return current == null || Objects.equals(current.getEmail(), claimed.getEmail())
+                && current.getRole() == claimed.getRole()
+                && current.getStatus() == claimed.getStatus();
+    }
+}
@@ -2,8 +2,9 @@ package com.training.rledenev.security;
 
 
 import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.entity.enums.Status;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -11,24 +12,38 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.util.Collection;
 import java.util.Collections;
 
-@RequiredArgsConstructor
 @Getter
-public class CustomUserDetails implements UserDetails {
-    private final transient User user;
+public final class CustomUserDetails implements UserDetails {
+    private final Long id;
+    private final String email;
+    private final transient String password;
+    private final Role role;
+    private final Status status;
 
-    @Override
-    public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Collections.singletonList(new SimpleGrantedAuthority(user.getRole().toString()));
+    public CustomUserDetails(User user) {
+        this(user.getId(), user.getEmail(), user.getPassword(), user.getRole(), user.getStatus());
+    }
+
+    public CustomUserDetails(Long id, String email, Role role, Status status) {
+        this(id, email, null, role, status);
+    }
+
+    private CustomUserDetails(Long id, String email, String password, Role role, Status status) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.status = status;
     }
 
     @Override
-    public String getPassword() {
-        return user.getPassword();
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return Collections.singletonList(new SimpleGrantedAuthority(role.toString()));
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
@@ -1,16 +1,24 @@
 package com.training.rledenev.security;
 
 import com.training.rledenev.entity.User;
+import com.training.rledenev.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
+@RequiredArgsConstructor
 @Component
 public class UserProvider {
+    private final UserRepository userRepository;
 
-    public User getCurrentUser() {
-        return ((CustomUserDetails) SecurityContextHolder.getContext()
+    public CustomUserDetails getCurrentUserDetails() {
+        return (CustomUserDetails) SecurityContextHolder.getContext()
                 .getAuthentication()
-                .getPrincipal())
-                .getUser();
+                .getPrincipal();
+    }
+
+    public User getCurrentUser() {
+        // A lazy reference: the row is only read if something beyond the id is used.
+        return userRepository.getReferenceById(getCurrentUserDetails().getId());
     }
 }
@@ -1,7 +1,7 @@
 package com.training.rledenev.security.jwt;
 
 import com.training.rledenev.security.CustomUserDetails;
-import com.training.rledenev.security.CustomUserDetailsServiceImpl;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -21,21 +21,23 @@ import static org.springframework.util.StringUtils.hasText;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
     private final JwtProvider jwtProvider;
-    private final CustomUserDetailsServiceImpl userDetailsService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
         String token = getTokenFromRequest(request);
-        if (token != null && jwtProvider.validateToken(token)) {
-            setCustomUserDetailsToSecurityContextHolder(token);
+        if (token != null) {
+            jwtProvider.getUserDetails(token).ifPresent(this::setCustomUserDetailsToSecurityContextHolder);
         }
         filterChain.doFilter(request, response);
     }
 
     public void setCustomUserDetailsToSecurityContextHolder(String token) {
-        String email = jwtProvider.getEmailFromToken(token);
-        CustomUserDetails customUserDetails = userDetailsService.loadUserByUsername(email);
+        setCustomUserDetailsToSecurityContextHolder(jwtProvider.getUserDetails(token)
+                .orElseThrow(() -> new JwtException("Invalid token")));
+    }
+
+    private void setCustomUserDetailsToSecurityContextHolder(CustomUserDetails customUserDetails) {
         UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(customUserDetails,
                 null, customUserDetails.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(auth);
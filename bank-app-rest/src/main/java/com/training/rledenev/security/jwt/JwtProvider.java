@@ -1,51 +1,189 @@
 package com.training.rledenev.security.jwt;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.entity.enums.Status;
+import com.training.rledenev.security.ChangedPrincipals;
+import com.training.rledenev.security.CustomUserDetails;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.ZoneId;
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
+@RequiredArgsConstructor
 @Component
 public class JwtProvider {
     private static final Logger LOGGER = LogManager.getLogger(JwtProvider.class);
+    private static final String USER_ID_CLAIM = "uid";
+    private static final String ROLE_CLAIM = "role";
+    private static final String STATUS_CLAIM = "status";
+    private final ChangedPrincipals changedPrincipals;
 
-    @Value("$(jwt.secret)")
+    @Value("${jwt.secret}")
     private String jwtSecret;
 
-    public String generateToken(String email) {
-        Date date = Date.from(LocalDateTime.now().plusMinutes(15).atZone(ZoneId.systemDefault()).toInstant());
+    @Value("${bank.security.access-token.ttl:PT15M}")
+    private Duration accessTokenTtl;
+
+    @Value("${bank.security.token-cache.maximum-size:10000}")
+    private long tokenCacheMaximumSize;
+
+    // Principals of tokens whose signature was already checked, keyed by SHA-256 of the token. Only immutable
+    // values are cached, since request threads share them.
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void initVerifiedTokens() {
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(tokenCacheMaximumSize)
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .build();
+        bindMetrics(Metrics.globalRegistry);
+    }
+
+    void bindMetrics(MeterRegistry meterRegistry) {
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verified-tokens");
+        Gauge.builder("bank.security.token-cache.hit-ratio", verifiedTokens, cache -> cache.stats().hitRate())
+                .description("Share of authenticated requests whose token was verified from the cache")
+                .register(meterRegistry);
+    }
+
+    public String generateToken(User user) {
+        Date date = Date.from(Instant.now().plus(accessTokenTtl));
         return Jwts.builder()
-                .setSubject(email)
+                .setSubject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().toString())
+                .claim(STATUS_CLAIM, user.getStatus().toString())
                 .setExpiration(date)
                 .signWith(SignatureAlgorithm.HS256, jwtSecret)
                 .compact();
     }
 
     public boolean validateToken(String token) {
+        return getUserDetails(token).isPresent();
+    }
+
+    public Optional<CustomUserDetails> getUserDetails(String token) {
+        // The principal comes from the claims alone; a user changed since the token was issued is refused until
+        // the token is renewed with the stored role and status.
+        return getVerifiedUserDetails(token).filter(changedPrincipals::isCurrent);
+    }
+
+    public String getEmailFromToken(String token) {
+        return getVerifiedUserDetails(token)
+                .map(CustomUserDetails::getEmail)
+                .orElseThrow(() -> new JwtException("Invalid token"));
+    }
+
+    private Optional<CustomUserDetails> getVerifiedUserDetails(String token) {
+        String tokenDigest = getTokenDigest(token);
+        VerifiedToken verifiedToken = verifiedTokens.getIfPresent(tokenDigest);
+        if (verifiedToken != null) {
+            return Optional.of(verifiedToken.getUserDetails());
+        }
+        Claims claims;
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token);
-            return true;
+            claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException expEx) {
             LOGGER.error("Token expired");
+            return Optional.empty();
         } catch (UnsupportedJwtException unsEx) {
             LOGGER.error("Unsupported jwt");
+            return Optional.empty();
         } catch (MalformedJwtException mjEx) {
             LOGGER.error("Malformed jwt");
+            return Optional.empty();
         } catch (SignatureException sEx) {
             LOGGER.error("Invalid signature");
+            return Optional.empty();
         } catch (Exception e) {
             LOGGER.error("invalid token");
+            return Optional.empty();
         }
-        return false;
+        Optional<CustomUserDetails> userDetails = getClaimedUserDetails(claims);
+        if (userDetails.isPresent() && claims.getExpiration() != null) {
+            verifiedTokens.put(tokenDigest, new VerifiedToken(userDetails.get(), claims.getExpiration().getTime()));
+        }
+        return userDetails;
     }
 
-    public String getEmailFromToken(String token) {
-        Claims claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody();
-        return claims.getSubject();
+    private static Optional<CustomUserDetails> getClaimedUserDetails(Claims claims) {
+        Number userId = claims.get(USER_ID_CLAIM, Number.class);
+        String role = claims.get(ROLE_CLAIM, String.class);
+        String status = claims.get(STATUS_CLAIM, String.class);
+        if (userId == null || role == null || status == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new CustomUserDetails(userId.longValue(), claims.getSubject(), Role.valueOf(role),
+                Status.valueOf(status)));
+    }
+
+    private static String getTokenDigest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class VerifiedToken {
+        private final CustomUserDetails userDetails;
+        private final long expiresAtMillis;
+
+        private VerifiedToken(CustomUserDetails userDetails, long expiresAtMillis) {
+            this.userDetails = userDetails;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private CustomUserDetails getUserDetails() {
+            return userDetails;
+        }
+
+        private long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+
+    private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+        @Override
+        public long expireAfterCreate(String tokenDigest, VerifiedToken verifiedToken, long currentTime) {
+            long millisLeft = verifiedToken.getExpiresAtMillis() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenDigest, VerifiedToken verifiedToken, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(tokenDigest, verifiedToken, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String tokenDigest, VerifiedToken verifiedToken, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,7 @@ package com.training.rledenev.service;
 import com.training.rledenev.dto.AccountDto;
 import com.training.rledenev.entity.Account;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface AccountService {
@@ -13,5 +14,9 @@ public interface AccountService {
 
     Account getAccountByNumber(String accountNumber);
 
+    Account getAccountOfCurrentUserByNumber(String accountNumber);
+
     Account getMainBankAccount();
+
+    void lockAccountsInIdOrder(Collection<Account> accounts);
 }
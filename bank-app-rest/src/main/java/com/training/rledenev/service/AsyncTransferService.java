@@ -0,0 +1,15 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransferStatusDto;
+
+import java.time.Duration;
+
+public interface AsyncTransferService {
+
+    TransferStatusDto submitTransaction(TransactionDto transactionDto, String idempotencyKey);
+
+    TransferStatusDto getTransferStatus(String transferId, Duration wait);
+
+    void deleteFinishedTransfers();
+}
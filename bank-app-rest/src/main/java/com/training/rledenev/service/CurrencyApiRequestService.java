@@ -1,10 +1,13 @@
 package com.training.rledenev.service;
 
-import org.json.JSONObject;
+import com.training.rledenev.entity.RateSnapshot;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 public interface CurrencyApiRequestService {
 
-    JSONObject getCurrencyJsonObject(String currency) throws IOException;
+    RateSnapshot getRatesTable() throws IOException;
+
+    CompletableFuture<RateSnapshot> getRatesTableAsync();
 }
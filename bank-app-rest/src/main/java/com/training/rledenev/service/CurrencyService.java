@@ -1,7 +1,11 @@
 package com.training.rledenev.service;
 
+import com.training.rledenev.entity.RateSnapshot;
+
 import java.math.BigDecimal;
 
 public interface CurrencyService {
     BigDecimal getRateOfCurrency(String currencyCode);
+
+    RateSnapshot getRateSnapshot();
 }
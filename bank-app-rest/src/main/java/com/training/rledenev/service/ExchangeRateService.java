@@ -0,0 +1,18 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.dto.ExchangeRateDto;
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.entity.enums.CurrencyCode;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface ExchangeRateService {
+
+    void saveRates(RateSnapshot rateSnapshot);
+
+    Optional<RateSnapshot> getLatestRates();
+
+    List<ExchangeRateDto> getRateHistory(CurrencyCode currencyCode, LocalDate from, LocalDate to);
+}
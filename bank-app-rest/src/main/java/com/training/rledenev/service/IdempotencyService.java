@@ -0,0 +1,27 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.IdempotencyKey;
+import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.entity.User;
+
+import java.util.Optional;
+
+public interface IdempotencyService {
+
+    Optional<Long> findTransactionId(User user, String key, TransactionDto transactionDto);
+
+    IdempotencyKey reserveKey(User user, String key, TransactionDto transactionDto);
+
+    void completeKey(IdempotencyKey idempotencyKey, Transaction transaction);
+
+    boolean isKeyReserved(User user, String key);
+
+    void checkKey(String key);
+
+    String getRequestHash(TransactionDto transactionDto);
+
+    void checkRequestHash(String key, String storedRequestHash, TransactionDto transactionDto);
+
+    void deleteExpiredKeys();
+}
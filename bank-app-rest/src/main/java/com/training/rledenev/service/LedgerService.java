@@ -0,0 +1,12 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.entity.Transaction;
+
+import java.util.Collection;
+
+public interface LedgerService {
+
+    void postTransactions(Collection<Transaction> transactions);
+
+    void takeSnapshots();
+}
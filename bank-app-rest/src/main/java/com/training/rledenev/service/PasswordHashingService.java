@@ -0,0 +1,8 @@
+package com.training.rledenev.service;
+
+public interface PasswordHashingService {
+
+    String encode(String rawPassword);
+
+    boolean matches(String rawPassword, String encodedPassword);
+}
@@ -0,0 +1,13 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.dto.RateQuoteDto;
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.RateQuote;
+import com.training.rledenev.entity.User;
+
+public interface RateQuoteService {
+
+    RateQuoteDto createQuote(TransactionDto transactionDto);
+
+    RateQuote getQuote(String quoteId, User owner);
+}
@@ -0,0 +1,15 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.dto.TokenPairDto;
+import com.training.rledenev.entity.User;
+
+public interface RefreshTokenService {
+
+    TokenPairDto issueTokens(User user);
+
+    TokenPairDto refreshTokens(String refreshToken);
+
+    void revokeToken(String refreshToken);
+
+    void deleteExpiredTokens();
+}
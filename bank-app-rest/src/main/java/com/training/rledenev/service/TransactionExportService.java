@@ -0,0 +1,12 @@
+package com.training.rledenev.service;
+
+import com.training.rledenev.entity.enums.ExportFormat;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+public interface TransactionExportService {
+
+    StreamingResponseBody exportTransactionsOfAccount(String accountNumber, LocalDate from, LocalDate to,
+                                                      ExportFormat format);
+}
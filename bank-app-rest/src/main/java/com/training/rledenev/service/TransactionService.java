@@ -1,15 +1,28 @@
 package com.training.rledenev.service;
 
 import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransactionPageDto;
+import com.training.rledenev.dto.TransactionResultDto;
 import com.training.rledenev.entity.Account;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.entity.User;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface TransactionService {
     List<TransactionDto> getAllTransactionsOfAccount(String accountNumber);
 
+    TransactionPageDto getTransactionsPageOfAccount(String accountNumber, String cursor, Integer size);
+
     void createTransaction(TransactionDto transactionDto);
 
-    void giveCreditFundsToAccount(Account account, BigDecimal amount);
+    void createTransaction(TransactionDto transactionDto, String idempotencyKey);
+
+    List<TransactionResultDto> createTransactions(List<TransactionDto> transactionDtos);
+
+    List<TransactionResultDto> createTransactions(List<TransactionDto> transactionDtos, List<User> owners,
+                                                  Consumer<List<TransactionResultDto>> chunkResultsConsumer);
+
+    void giveCreditFundsToAccount(Account account, Money amount);
 }
@@ -2,22 +2,39 @@ package com.training.rledenev.service.impl;
 
 import com.training.rledenev.dto.AccountDto;
 import com.training.rledenev.entity.Account;
+import com.training.rledenev.entity.Money;
 import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.Role;
 import com.training.rledenev.exception.AccountNotFoundException;
+import com.training.rledenev.exception.NotOwnerException;
 import com.training.rledenev.mapper.AccountMapper;
+import com.training.rledenev.security.CustomUserDetails;
 import com.training.rledenev.security.UserProvider;
 import com.training.rledenev.repository.AccountRepository;
 import com.training.rledenev.service.AccountService;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class AccountServiceImpl implements AccountService {
     private static final String MAIN_BANK_ACCOUNT_NUMBER = "1111111111111111";
+    private static final Timer LOCK_WAIT_TIMER = Timer.builder("bank.account.lock.wait")
+            .description("Time spent waiting for account row locks")
+            .register(Metrics.globalRegistry);
     private final AccountMapper accountMapper;
     private final AccountRepository accountRepository;
     private final UserProvider userProvider;
@@ -42,9 +59,43 @@ public class AccountServiceImpl implements AccountService {
                 .orElseThrow(() -> new AccountNotFoundException("Account not found with number " + accountNumber));
     }
 
+    @Transactional
+    @Override
+    public Account getAccountOfCurrentUserByNumber(String accountNumber) {
+        Account account = getAccountByNumber(accountNumber);
+        CustomUserDetails userDetails = userProvider.getCurrentUserDetails();
+        User client = account.getClient();
+        // Managers review every account; a client reads only their own, never the bank's main account.
+        if (userDetails.getRole() != Role.MANAGER
+                && (client == null || !Objects.equals(client.getId(), userDetails.getId()))) {
+            throw new NotOwnerException("Access Denied, wrong account owner");
+        }
+        return account;
+    }
+
     @Transactional
     @Override
     public Account getMainBankAccount() {
         return getAccountByNumber(MAIN_BANK_ACCOUNT_NUMBER);
     }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void lockAccountsInIdOrder(Collection<Account> accounts) {
+        // Every writer locks in ascending id order, so two transfers over the same pair can never deadlock.
+        // A single transfer passes one row, but a batch chunk locks the debit rows of all its transfers,
+        // and two chunks debiting the same accounts in opposite order would deadlock without the sort.
+        List<Account> orderedAccounts = accounts.stream()
+                .distinct()
+                .sorted(Comparator.comparing(Account::getId))
+                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        for (Account account : orderedAccounts) {
+            accountRepository.lockById(account.getId());
+            account.setCurrentBalance(Money.of(accountRepository.getCurrentBalanceById(account.getId())));
+        }
+        long waitNanos = System.nanoTime() - start;
+        LOCK_WAIT_TIMER.record(waitNanos, TimeUnit.NANOSECONDS);
+        log.debug("Locked accounts {} after waiting {} us", orderedAccounts, TimeUnit.NANOSECONDS.toMicros(waitNanos));
+    }
 }
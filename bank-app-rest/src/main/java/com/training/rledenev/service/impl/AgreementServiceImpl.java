@@ -72,7 +72,8 @@ public class AgreementServiceImpl implements AgreementService {
                 || agreement.getProduct().getType() == ProductType.CREDIT_CARD) {
             transactionService.giveCreditFundsToAccount(account, agreement.getSum());
         } else {
-            account.setBalance(agreement.getSum());
+            // The balance column is not updatable through the entity, so the deposit is added in place.
+            accountRepository.addToBalance(account.getId(), agreement.getSum().toBigDecimal());
         }
         account.setUpdatedAt(LocalDateTime.now());
         account.setStatus(Status.ACTIVE);
@@ -0,0 +1,374 @@
+package com.training.rledenev.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransactionResultDto;
+import com.training.rledenev.dto.TransferStatusDto;
+import com.training.rledenev.entity.AsyncTransfer;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.TransferStatus;
+import com.training.rledenev.exception.IdempotencyKeyMismatchException;
+import com.training.rledenev.exception.TransferNotFoundException;
+import com.training.rledenev.exception.TransferQueueFullException;
+import com.training.rledenev.repository.AsyncTransferRepository;
+import com.training.rledenev.security.UserProvider;
+import com.training.rledenev.service.AsyncTransferService;
+import com.training.rledenev.service.IdempotencyService;
+import com.training.rledenev.service.TransactionService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class AsyncTransferServiceImpl implements AsyncTransferService {
+    private static final long POLL_INTERVAL_MILLIS = 100;
+    private static final int MAX_MESSAGE_LENGTH = 255;
+    private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransferRepository asyncTransferRepository;
+    private final UserProvider userProvider;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${bank.transaction.async.shards:4}")
+    private int shardCount;
+
+    @Value("${bank.transaction.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${bank.transaction.async.max-batch-size:100}")
+    private int maxBatchSize;
+
+    @Value("${bank.transaction.async.status-retention:PT1H}")
+    private Duration statusRetention;
+
+    @Value("${bank.transaction.async.max-status-wait:PT10S}")
+    private Duration maxStatusWait;
+
+    @Value("${bank.transaction.async.shutdown-timeout:PT30S}")
+    private Duration shutdownTimeout;
+
+    @Value("${bank.transaction.async.resume-pending:true}")
+    private boolean resumePending;
+
+    private final List<BlockingQueue<PendingTransfer>> shards = new ArrayList<>();
+    private final Map<String, CompletableFuture<TransferStatusDto>> completions = new ConcurrentHashMap<>();
+    private volatile boolean running;
+    private LocalDateTime startedAt;
+    private TransactionTemplate transactionTemplate;
+    private ExecutorService writers;
+
+    @PostConstruct
+    void startWriters() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        startedAt = LocalDateTime.now();
+        running = true;
+        AtomicInteger writerNumber = new AtomicInteger();
+        writers = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "transfer-writer-" + writerNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < shardCount; i++) {
+            BlockingQueue<PendingTransfer> shard = new ArrayBlockingQueue<>(queueCapacity);
+            shards.add(shard);
+            Gauge.builder("bank.transfer.queue.depth", shard, Queue::size)
+                    .description("Transfers waiting for the shard writer")
+                    .tag("shard", String.valueOf(i))
+                    .register(Metrics.globalRegistry);
+            writers.execute(() -> drainShard(shard));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void resumePendingTransfers() {
+        // Transfers accepted before a restart are still PENDING in the table; nothing of them was posted,
+        // because a posted transfer changes its status in the same transaction. Another instance may still be
+        // draining some of them, which is safe: whichever writer claims a transfer first posts it.
+        if (!resumePending) {
+            return;
+        }
+        long lastId = 0;
+        int resumed = 0;
+        List<AsyncTransfer> pendingTransfers;
+        do {
+            pendingTransfers = asyncTransferRepository.findAllByStatusCreatedBefore(TransferStatus.PENDING,
+                    startedAt, lastId, PageRequest.of(0, maxBatchSize));
+            List<PendingTransfer> batch = new ArrayList<>(pendingTransfers.size());
+            for (AsyncTransfer asyncTransfer : pendingTransfers) {
+                lastId = asyncTransfer.getId();
+                batch.add(new PendingTransfer(asyncTransfer.getTransferId(), readRequest(asyncTransfer),
+                        asyncTransfer.getUser()));
+            }
+            if (!batch.isEmpty()) {
+                postBatch(batch);
+                resumed += batch.size();
+            }
+        } while (pendingTransfers.size() == maxBatchSize);
+        if (resumed > 0) {
+            log.info("Resumed {} transfers accepted before the restart", resumed);
+        }
+    }
+
+    @PreDestroy
+    void stopWriters() {
+        // Writers finish what is already queued; anything left after the timeout stays PENDING for the next start.
+        running = false;
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Transfer writers did not drain within {}, {} transfers stay pending", shutdownTimeout,
+                        shards.stream().mapToInt(Queue::size).sum());
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public TransferStatusDto submitTransaction(TransactionDto transactionDto, String idempotencyKey) {
+        if (!running) {
+            throw new TransferQueueFullException("Transfer queue is shutting down, try again later");
+        }
+        User owner = userProvider.getCurrentUser();
+        if (idempotencyKey != null) {
+            idempotencyService.checkKey(idempotencyKey);
+            Optional<AsyncTransfer> acceptedTransfer = asyncTransferRepository
+                    .findByIdempotencyKeyOfUser(owner.getId(), idempotencyKey);
+            if (acceptedTransfer.isPresent()) {
+                return getReplayedStatus(acceptedTransfer.get(), idempotencyKey, transactionDto);
+            }
+        }
+        AsyncTransfer asyncTransfer = getNewAsyncTransfer(transactionDto, idempotencyKey, owner);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (idempotencyKey != null) {
+                    // Reserved in the store the synchronous path uses, so one key can never post on both paths.
+                    idempotencyService.reserveKey(owner, idempotencyKey, transactionDto);
+                }
+                asyncTransferRepository.saveAndFlush(asyncTransfer);
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyKey == null) {
+                throw e;
+            }
+            Optional<AsyncTransfer> acceptedTransfer = asyncTransferRepository
+                    .findByIdempotencyKeyOfUser(owner.getId(), idempotencyKey);
+            if (acceptedTransfer.isPresent()) {
+                return getReplayedStatus(acceptedTransfer.get(), idempotencyKey, transactionDto);
+            }
+            if (idempotencyService.isKeyReserved(owner, idempotencyKey)) {
+                throw new IdempotencyKeyMismatchException("Idempotency key " + idempotencyKey
+                        + " was used for another transfer");
+            }
+            throw e;
+        }
+        String transferId = asyncTransfer.getTransferId();
+        completions.put(transferId, new CompletableFuture<>());
+        // Every transfer from one debit account lands on the same shard, so its writer never waits on another.
+        BlockingQueue<PendingTransfer> shard = shards.get(Math.floorMod(
+                Objects.hashCode(transactionDto.getDebitAccountNumber()), shardCount));
+        if (!shard.offer(new PendingTransfer(transferId, transactionDto, owner))) {
+            completions.remove(transferId);
+            transactionTemplate.executeWithoutResult(status -> asyncTransferRepository.deleteById(
+                    asyncTransfer.getId()));
+            throw new TransferQueueFullException("Transfer queue is full, try again later");
+        }
+        return getTransferStatusDto(asyncTransfer);
+    }
+
+    @Override
+    public TransferStatusDto getTransferStatus(String transferId, Duration wait) {
+        Long ownerId = userProvider.getCurrentUserDetails().getId();
+        // Taken before the status is read: the writer records the status first and completes the future after.
+        CompletableFuture<TransferStatusDto> completion = completions.get(transferId);
+        TransferStatusDto transferStatus = findTransferStatus(transferId, ownerId);
+        if (completion == null || wait.isZero() || wait.isNegative()
+                || !TransferStatus.PENDING.toString().equals(transferStatus.getStatus())) {
+            return transferStatus;
+        }
+        try {
+            return completion.get(Math.min(wait.toMillis(), maxStatusWait.toMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            return transferStatus;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return transferStatus;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.transaction.async.cleanup-interval:PT1H}")
+    @Transactional
+    @Override
+    public void deleteFinishedTransfers() {
+        int deleted = asyncTransferRepository.deleteAllFinishedBefore(TransferStatus.PENDING,
+                LocalDateTime.now().minus(statusRetention));
+        log.debug("Deleted {} finished transfers", deleted);
+    }
+
+    private void drainShard(BlockingQueue<PendingTransfer> shard) {
+        List<PendingTransfer> batch = new ArrayList<>(maxBatchSize);
+        while (running || !shard.isEmpty()) {
+            PendingTransfer pendingTransfer;
+            try {
+                pendingTransfer = shard.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (pendingTransfer == null) {
+                continue;
+            }
+            batch.add(pendingTransfer);
+            shard.drainTo(batch, maxBatchSize - 1);
+            postBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void postBatch(List<PendingTransfer> batch) {
+        List<TransactionResultDto> results;
+        try {
+            results = transactionService.createTransactions(
+                    batch.stream().map(PendingTransfer::getTransactionDto).collect(Collectors.toList()),
+                    batch.stream().map(PendingTransfer::getOwner).collect(Collectors.toList()),
+                    chunkResults -> claimResults(batch, chunkResults));
+        } catch (RuntimeException e) {
+            log.error("Failed to post a batch of {} transfers", batch.size(), e);
+            results = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                results.add(TransactionResultDto.failed(i, e.getMessage()));
+            }
+        }
+        // Chunks that committed have recorded their results already; this catches the ones that never did.
+        List<TransactionResultDto> finalResults = results;
+        int[] recorded = Objects.requireNonNull(transactionTemplate.execute(status ->
+                recordResults(batch, finalResults)));
+        for (TransactionResultDto result : finalResults) {
+            String transferId = batch.get(result.getIndex()).getTransferId();
+            CompletableFuture<TransferStatusDto> completion = completions.remove(transferId);
+            if (completion == null) {
+                continue;
+            }
+            // A failure that was not recorded here may stand for a transfer another writer claimed and posted.
+            if (recorded[result.getIndex()] == 1 || TransferStatus.COMPLETED.toString().equals(result.getStatus())) {
+                completion.complete(new TransferStatusDto(transferId, result.getStatus(),
+                        truncateMessage(result.getMessage())));
+            } else {
+                asyncTransferRepository.findByTransferId(transferId)
+                        .map(AsyncTransferServiceImpl::getTransferStatusDto)
+                        .ifPresent(completion::complete);
+            }
+        }
+    }
+
+    private void claimResults(List<PendingTransfer> batch, List<TransactionResultDto> results) {
+        // Runs in the chunk transaction: the conditional update locks each row, so a transfer that another writer
+        // has already recorded rolls the whole chunk back instead of being posted twice.
+        int[] recorded = recordResults(batch, results);
+        for (TransactionResultDto result : results) {
+            if (recorded[result.getIndex()] != 1) {
+                throw new IllegalStateException("Transfer " + batch.get(result.getIndex()).getTransferId()
+                        + " was already taken by another writer");
+            }
+        }
+    }
+
+    private int[] recordResults(List<PendingTransfer> batch, List<TransactionResultDto> results) {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        int[] recorded = new int[batch.size()];
+        for (TransactionResultDto result : results) {
+            recorded[result.getIndex()] = asyncTransferRepository.updatePendingStatus(
+                    batch.get(result.getIndex()).getTransferId(), TransferStatus.PENDING,
+                    TransferStatus.valueOf(result.getStatus()), truncateMessage(result.getMessage()), updatedAt);
+        }
+        return recorded;
+    }
+
+    private TransferStatusDto findTransferStatus(String transferId, Long ownerId) {
+        return asyncTransferRepository.findByTransferIdOfUser(transferId, ownerId)
+                .map(AsyncTransferServiceImpl::getTransferStatusDto)
+                .orElseThrow(() -> new TransferNotFoundException("Transfer not found with id " + transferId));
+    }
+
+    private TransferStatusDto getReplayedStatus(AsyncTransfer asyncTransfer, String idempotencyKey,
+                                                TransactionDto transactionDto) {
+        idempotencyService.checkRequestHash(idempotencyKey, asyncTransfer.getRequestHash(), transactionDto);
+        return getTransferStatusDto(asyncTransfer);
+    }
+
+    private AsyncTransfer getNewAsyncTransfer(TransactionDto transactionDto, String idempotencyKey, User owner) {
+        AsyncTransfer asyncTransfer = new AsyncTransfer();
+        asyncTransfer.setTransferId(UUID.randomUUID().toString());
+        asyncTransfer.setUser(owner);
+        asyncTransfer.setIdempotencyKey(idempotencyKey);
+        if (idempotencyKey != null) {
+            asyncTransfer.setRequestHash(idempotencyService.getRequestHash(transactionDto));
+        }
+        asyncTransfer.setRequest(writeRequest(transactionDto));
+        asyncTransfer.setStatus(TransferStatus.PENDING);
+        asyncTransfer.setCreatedAt(LocalDateTime.now());
+        asyncTransfer.setUpdatedAt(asyncTransfer.getCreatedAt());
+        return asyncTransfer;
+    }
+
+    private String writeRequest(TransactionDto transactionDto) {
+        try {
+            return objectMapper.writeValueAsString(transactionDto);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Transfer cannot be serialized", e);
+        }
+    }
+
+    private TransactionDto readRequest(AsyncTransfer asyncTransfer) {
+        try {
+            return objectMapper.readValue(asyncTransfer.getRequest(), TransactionDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored transfer " + asyncTransfer.getTransferId() + " is unreadable", e);
+        }
+    }
+
+    private static TransferStatusDto getTransferStatusDto(AsyncTransfer asyncTransfer) {
+        return new TransferStatusDto(asyncTransfer.getTransferId(), asyncTransfer.getStatus().toString(),
+                asyncTransfer.getMessage());
+    }
+
+    private static String truncateMessage(String message) {
+        return message == null || message.length() <= MAX_MESSAGE_LENGTH ? message
+                : message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingTransfer {
+        private final String transferId;
+        private final TransactionDto transactionDto;
+        private final User owner;
+    }
+}
@@ -0,0 +1,228 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.exception.CurrencyRatesUnavailableException;
+import com.training.rledenev.service.CurrencyService;
+import com.training.rledenev.service.ExchangeRateService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Primary
+@RequiredArgsConstructor
+@Service
+public class CachingCurrencyService implements CurrencyService {
+    private static final Counter CACHE_HITS = Counter.builder("bank.currency.cache.requests")
+            .tag("result", "hit")
+            .description("Currency rate lookups served from the cache")
+            .register(Metrics.globalRegistry);
+    private static final Counter CACHE_MISSES = Counter.builder("bank.currency.cache.requests")
+            .tag("result", "miss")
+            .description("Currency rate lookups that had to call the rate provider")
+            .register(Metrics.globalRegistry);
+    private static final Counter CACHE_STALE = Counter.builder("bank.currency.cache.requests")
+            .tag("result", "stale")
+            .description("Currency rate lookups served from an expired snapshot while it is revalidated")
+            .register(Metrics.globalRegistry);
+    private final CurrencyServiceNBP currencyServiceNBP;
+    private final ExchangeRateService exchangeRateService;
+    private final Object loadLock = new Object();
+    private final AtomicBoolean refreshInFlight = new AtomicBoolean();
+
+    // Off sends every lookup to the provider, e.g. to measure transfers at the synthetic provider's latency.
+    @Value("${bank.currency.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${bank.currency.cache.ttl:PT24H}")
+    private Duration ttl;
+
+    // How long past its TTL a table may still be served while the provider is unreachable.
+    @Value("${bank.currency.cache.max-stale:PT48H}")
+    private Duration maxStale;
+
+    @Value("${bank.currency.cache.warm-up:true}")
+    private boolean warmUp;
+
+    // Readers only ever see a complete table; a refresh builds a new snapshot and swaps the reference.
+    private volatile CachedSnapshot cachedSnapshot;
+    private ExecutorService refreshExecutor;
+
+    @PostConstruct
+    void initRefreshExecutor() {
+        refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "currency-rate-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("bank.currency.rates.age", this, CachingCurrencyService::getRatesAgeSeconds)
+                .baseUnit("seconds")
+                .description("Time since the served rate table was fetched from NBP")
+                .register(Metrics.globalRegistry);
+    }
+
+    @PreDestroy
+    void shutdownRefreshExecutor() {
+        refreshExecutor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUpFromStoredRates() {
+        if (!warmUp || !cacheEnabled) {
+            return;
+        }
+        try {
+            exchangeRateService.getLatestRates().ifPresent(rateSnapshot -> {
+                // Stored rates are served until the first fetch from NBP succeeds.
+                cachedSnapshot = newCachedSnapshot(rateSnapshot, LocalDateTime.now());
+                log.info("Warmed currency rates from stored table of {}", rateSnapshot.getEffectiveDate());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Could not warm currency rates from stored tables: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public BigDecimal getRateOfCurrency(String currencyCode) {
+        return getRateSnapshot().getRate(CurrencyCode.valueOf(currencyCode.toUpperCase()));
+    }
+
+    @Override
+    public RateSnapshot getRateSnapshot() {
+        if (!cacheEnabled) {
+            CACHE_MISSES.increment();
+            return currencyServiceNBP.getRateSnapshot();
+        }
+        CachedSnapshot current = cachedSnapshot;
+        if (current != null && current.isValid()) {
+            CACHE_HITS.increment();
+            return current.getRateSnapshot();
+        }
+        if (current != null && current.isServable()) {
+            // Stale-while-revalidate: answer from the last good table and let one background refresh catch up.
+            CACHE_STALE.increment();
+            refreshInBackground();
+            return current.getStaleRateSnapshot();
+        }
+        CACHE_MISSES.increment();
+        // Only a cold cache or a table past max-stale blocks; concurrent misses wait for a single provider call.
+        synchronized (loadLock) {
+            current = cachedSnapshot;
+            if (current == null || !current.isServable()) {
+                current = loadSnapshot();
+                cachedSnapshot = current;
+            }
+            if (current.isValid()) {
+                return current.getRateSnapshot();
+            }
+            if (current.isServable()) {
+                return current.getStaleRateSnapshot();
+            }
+            throw new CurrencyRatesUnavailableException("Currency rates of "
+                    + current.getRateSnapshot().getEffectiveDate() + " are too old to be used");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.currency.cache.refresh-interval:PT1H}")
+    public void refreshRates() {
+        try {
+            cachedSnapshot = fetchSnapshot();
+            log.debug("Refreshed currency rates to {}", cachedSnapshot.getRateSnapshot());
+        } catch (RuntimeException e) {
+            // The previous snapshot stays in use and is served as stale once it expires.
+            log.warn("Could not refresh currency rates: {}", e.getMessage());
+        }
+    }
+
+    private void refreshInBackground() {
+        if (refreshInFlight.compareAndSet(false, true)) {
+            refreshExecutor.execute(() -> {
+                try {
+                    refreshRates();
+                } finally {
+                    refreshInFlight.set(false);
+                }
+            });
+        }
+    }
+
+    private CachedSnapshot loadSnapshot() {
+        try {
+            return fetchSnapshot();
+        } catch (RuntimeException e) {
+            RateSnapshot fallback = exchangeRateService.getLatestRates().orElseThrow(() -> e);
+            log.warn("Serving stored currency rates of {}: {}", fallback.getEffectiveDate(), e.getMessage());
+            return newCachedSnapshot(fallback, LocalDateTime.now());
+        }
+    }
+
+    private CachedSnapshot fetchSnapshot() {
+        RateSnapshot rateSnapshot = currencyServiceNBP.getRateSnapshot();
+        try {
+            exchangeRateService.saveRates(rateSnapshot);
+        } catch (RuntimeException e) {
+            log.warn("Could not store currency rates of {}: {}", rateSnapshot.getEffectiveDate(), e.getMessage());
+        }
+        return newCachedSnapshot(rateSnapshot, rateSnapshot.getFetchedAt().plus(ttl));
+    }
+
+    private CachedSnapshot newCachedSnapshot(RateSnapshot rateSnapshot, LocalDateTime expiresAt) {
+        return new CachedSnapshot(rateSnapshot, expiresAt, rateSnapshot.getFetchedAt().plus(ttl).plus(maxStale));
+    }
+
+    private double getRatesAgeSeconds() {
+        CachedSnapshot current = cachedSnapshot;
+        if (current == null) {
+            return Double.NaN;
+        }
+        return Duration.between(current.getRateSnapshot().getFetchedAt(), LocalDateTime.now()).getSeconds();
+    }
+
+    private static final class CachedSnapshot {
+        private final RateSnapshot rateSnapshot;
+        private final RateSnapshot staleRateSnapshot;
+        private final LocalDateTime expiresAt;
+        private final LocalDateTime staleUntil;
+
+        private CachedSnapshot(RateSnapshot rateSnapshot, LocalDateTime expiresAt, LocalDateTime staleUntil) {
+            this.rateSnapshot = rateSnapshot;
+            this.staleRateSnapshot = rateSnapshot.asStale();
+            this.expiresAt = expiresAt;
+            this.staleUntil = staleUntil;
+        }
+
+        private RateSnapshot getRateSnapshot() {
+            return rateSnapshot;
+        }
+
+        private RateSnapshot getStaleRateSnapshot() {
+            return staleRateSnapshot;
+        }
+
+        private boolean isValid() {
+            return expiresAt.isAfter(LocalDateTime.now());
+        }
+
+        private boolean isServable() {
+            return staleUntil.isAfter(LocalDateTime.now());
+        }
+    }
+}
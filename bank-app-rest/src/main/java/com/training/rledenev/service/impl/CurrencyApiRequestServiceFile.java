@@ -0,0 +1,60 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.service.CurrencyApiRequestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+@Slf4j
+@ConditionalOnProperty(name = "bank.currency.provider", havingValue = "file")
+@Service
+public class CurrencyApiRequestServiceFile implements CurrencyApiRequestService {
+    private final AtomicInteger nextTable = new AtomicInteger();
+
+    @Value("${bank.currency.file.location}")
+    private Resource location;
+
+    // Off by default, so every lookup sees the latest recorded table no matter how many came before it.
+    @Value("${bank.currency.file.replay:false}")
+    private boolean replay;
+
+    private List<RateSnapshot> tables;
+
+    @PostConstruct
+    void loadTables() throws IOException {
+        try (InputStream body = location.getInputStream()) {
+            tables = NbpRatesTableParser.parseAll(body, LocalDateTime.now()).stream()
+                    .sorted(Comparator.comparing(RateSnapshot::getEffectiveDate))
+                    .collect(Collectors.toUnmodifiableList());
+        }
+        if (tables.isEmpty()) {
+            throw new IllegalStateException("No rate tables in " + location);
+        }
+        log.info("Replaying {} recorded rate tables from {}", tables.size(), location);
+    }
+
+    @Override
+    public RateSnapshot getRatesTable() {
+        // Replay walks the recorded tables in file order and wraps around, one table per fetch.
+        int index = replay ? Math.floorMod(nextTable.getAndIncrement(), tables.size()) : tables.size() - 1;
+        return tables.get(index).withFetchedAt(LocalDateTime.now());
+    }
+
+    @Override
+    public CompletableFuture<RateSnapshot> getRatesTableAsync() {
+        return CompletableFuture.completedFuture(getRatesTable());
+    }
+}
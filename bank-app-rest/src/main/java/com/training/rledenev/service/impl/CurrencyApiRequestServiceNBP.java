@@ -1,26 +1,120 @@
 package com.training.rledenev.service.impl;
 
+import com.training.rledenev.entity.RateSnapshot;
 import com.training.rledenev.service.CurrencyApiRequestService;
-import org.json.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URL;
-import java.util.Scanner;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
+@Slf4j
+@ConditionalOnProperty(name = "bank.currency.provider", havingValue = "nbp", matchIfMissing = true)
 @Service
 public class CurrencyApiRequestServiceNBP implements CurrencyApiRequestService {
-    private static final String NATIONAL_BANK_POLAND_API_URL = "http://api.nbp.pl/api/exchangerates/rates/A/";
+    private static final String NATIONAL_BANK_POLAND_TABLE_URL = "http://api.nbp.pl/api/exchangerates/tables/A/";
+    private final Map<String, CompletableFuture<RateSnapshot>> inFlightRequests = new ConcurrentHashMap<>();
+
+    @Value("${bank.currency.api.connect-timeout:PT2S}")
+    private Duration connectTimeout;
+
+    @Value("${bank.currency.api.request-timeout:PT5S}")
+    private Duration requestTimeout;
+
+    private HttpClient httpClient;
+
+    @PostConstruct
+    void initHttpClient() {
+        // One client for the whole application, so connections to NBP are kept alive and reused.
+        httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
 
     @Override
-    public JSONObject getCurrencyJsonObject(String currency) throws IOException {
-        URL url = new URL(NATIONAL_BANK_POLAND_API_URL + currency);
-        Scanner scanner = new Scanner((InputStream) url.getContent());
-        StringBuilder result = new StringBuilder();
-        while (scanner.hasNext()) {
-            result.append(scanner.nextLine());
+    public RateSnapshot getRatesTable() throws IOException {
+        try {
+            return getRatesTableAsync().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for rates table", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
         }
-        return new JSONObject(result.toString());
+    }
+
+    @Override
+    public CompletableFuture<RateSnapshot> getRatesTableAsync() {
+        return getSharedRequest(NATIONAL_BANK_POLAND_TABLE_URL).copy();
+    }
+
+    private CompletableFuture<RateSnapshot> getSharedRequest(String url) {
+        // Concurrent callers for the same url share one in-flight request instead of each calling NBP.
+        CompletableFuture<RateSnapshot> created = new CompletableFuture<>();
+        CompletableFuture<RateSnapshot> inFlight = inFlightRequests.putIfAbsent(url, created);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        sendRequest(url).whenComplete((result, error) -> {
+            inFlightRequests.remove(url, created);
+            if (error != null) {
+                created.completeExceptionally(error);
+            } else {
+                created.complete(result);
+            }
+        });
+        return created;
+    }
+
+    private CompletableFuture<RateSnapshot> sendRequest(String url) {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .thenApply(response -> {
+                    // The body is decoded token by token straight into the snapshot, without a String or a tree.
+                    try (InputStream body = response.body()) {
+                        if (response.statusCode() != 200) {
+                            body.transferTo(OutputStream.nullOutputStream());
+                            throw new IOException("NBP responded with status " + response.statusCode());
+                        }
+                        RateSnapshot snapshot = NbpRatesTableParser.parse(body, LocalDateTime.now());
+                        // Whatever follows the table is read off, so the connection returns to the pool on close.
+                        body.transferTo(OutputStream.nullOutputStream());
+                        return snapshot;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .orTimeout(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    log.debug("Requested {} in {} ms", url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                });
     }
 }
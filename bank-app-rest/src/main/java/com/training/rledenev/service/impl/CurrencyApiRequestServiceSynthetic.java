@@ -0,0 +1,56 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.service.CurrencyApiRequestService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@ConditionalOnProperty(name = "bank.currency.provider", havingValue = "synthetic")
+@Service
+public class CurrencyApiRequestServiceSynthetic implements CurrencyApiRequestService {
+
+    @Value("${bank.currency.synthetic.latency:PT0S}")
+    private Duration latency;
+
+    private RateSnapshot table;
+
+    @PostConstruct
+    void initTable() {
+        // Fixed, made-up rates: 1.1 for the first currency after PLN, 1.2 for the next and so on.
+        Map<CurrencyCode, BigDecimal> rates = new EnumMap<>(CurrencyCode.class);
+        for (CurrencyCode currencyCode : CurrencyCode.values()) {
+            rates.put(currencyCode, BigDecimal.ONE.add(BigDecimal.valueOf(currencyCode.ordinal(), 1)));
+        }
+        table = new RateSnapshot(rates, LocalDate.now(), LocalDateTime.now());
+    }
+
+    @Override
+    public RateSnapshot getRatesTable() throws IOException {
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while simulating rate provider latency", e);
+        }
+        return table.withFetchedAt(LocalDateTime.now());
+    }
+
+    @Override
+    public CompletableFuture<RateSnapshot> getRatesTableAsync() {
+        return CompletableFuture.supplyAsync(() -> table.withFetchedAt(LocalDateTime.now()),
+                CompletableFuture.delayedExecutor(latency.toMillis(), TimeUnit.MILLISECONDS));
+    }
+}
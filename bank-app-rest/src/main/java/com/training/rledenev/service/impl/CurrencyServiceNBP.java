@@ -1,33 +1,66 @@
 package com.training.rledenev.service.impl;
 
+import com.training.rledenev.entity.RateSnapshot;
 import com.training.rledenev.entity.enums.CurrencyCode;
 import com.training.rledenev.exception.RequestApiException;
 import com.training.rledenev.service.CurrencyApiRequestService;
 import com.training.rledenev.service.CurrencyService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
-import org.json.JSONObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.time.Duration;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class CurrencyServiceNBP implements CurrencyService {
     private final CurrencyApiRequestService currencyApiRequestService;
+
+    @Value("${bank.currency.circuit-breaker.failure-threshold:3}")
+    private int failureThreshold;
+
+    @Value("${bank.currency.circuit-breaker.open-duration:PT30S}")
+    private Duration openDuration;
+
+    private CircuitBreaker circuitBreaker;
+
+    @PostConstruct
+    void initCircuitBreaker() {
+        circuitBreaker = new CircuitBreaker(failureThreshold, openDuration);
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("bank.currency.circuit-breaker.state", circuitBreaker,
+                            breaker -> breaker.getState() == state ? 1 : 0)
+                    .tag("state", state.name().toLowerCase())
+                    .description("1 for the current state of the NBP circuit breaker")
+                    .register(Metrics.globalRegistry);
+        }
+    }
+
     @Override
     public BigDecimal getRateOfCurrency(String currencyCode) {
-        currencyCode = currencyCode.toUpperCase();
-        if (CurrencyCode.PLN.toString().equals(currencyCode)) {
-            return BigDecimal.valueOf(1);
+        return getRateSnapshot().getRate(CurrencyCode.valueOf(currencyCode.toUpperCase()));
+    }
+
+    @Override
+    public RateSnapshot getRateSnapshot() {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            throw new RequestApiException("NBP circuit breaker is open");
         }
-        JSONObject currencyJson;
         try {
-            currencyJson = currencyApiRequestService.getCurrencyJsonObject(currencyCode);
-        } catch (IOException e) {
+            RateSnapshot rateSnapshot = currencyApiRequestService.getRatesTable();
+            circuitBreaker.onSuccess();
+            return rateSnapshot;
+        } catch (IOException | RuntimeException e) {
+            circuitBreaker.onFailure();
+            log.debug("NBP request failed, circuit breaker is {}", circuitBreaker.getState());
             throw new RequestApiException(e.getMessage());
         }
-        JSONObject subObject = currencyJson.getJSONArray("rates").getJSONObject(0);
-        return BigDecimal.valueOf(subObject.getDouble("mid"));
     }
 }
@@ -0,0 +1,92 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.dto.ExchangeRateDto;
+import com.training.rledenev.entity.ExchangeRate;
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.mapper.ExchangeRateMapper;
+import com.training.rledenev.repository.ExchangeRateRepository;
+import com.training.rledenev.service.ExchangeRateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class ExchangeRateServiceImpl implements ExchangeRateService {
+    private final ExchangeRateRepository exchangeRateRepository;
+    private final ExchangeRateMapper exchangeRateMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public void saveRates(RateSnapshot rateSnapshot) {
+        if (exchangeRateRepository.existsByEffectiveDate(rateSnapshot.getEffectiveDate())) {
+            return;
+        }
+        List<ExchangeRate> exchangeRates = rateSnapshot.getRates().entrySet().stream()
+                .filter(entry -> entry.getKey() != CurrencyCode.PLN)
+                .map(entry -> getNewExchangeRate(rateSnapshot, entry.getKey(), entry.getValue()))
+                .collect(Collectors.toList());
+        // A cold cache can bring us here from inside a transfer. The insert gets its own transaction, and the
+        // duplicate is caught outside it, so a lost race never marks the caller's transaction rollback-only.
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            transactionTemplate.executeWithoutResult(status -> exchangeRateRepository.saveAllAndFlush(exchangeRates));
+        } catch (DataIntegrityViolationException e) {
+            // Another instance stored the same table first.
+            log.debug("Rates of {} are already stored", rateSnapshot.getEffectiveDate());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<RateSnapshot> getLatestRates() {
+        return exchangeRateRepository.findLatestEffectiveDate()
+                .map(exchangeRateRepository::getAllByEffectiveDate)
+                .filter(exchangeRates -> !exchangeRates.isEmpty())
+                .map(ExchangeRateServiceImpl::getRateSnapshot);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ExchangeRateDto> getRateHistory(CurrencyCode currencyCode, LocalDate from, LocalDate to) {
+        LocalDate toDate = to == null ? LocalDate.now() : to;
+        LocalDate fromDate = from == null ? toDate.minusMonths(1) : from;
+        return exchangeRateMapper.mapToListDto(exchangeRateRepository.getRateHistory(currencyCode, fromDate, toDate));
+    }
+
+    private static ExchangeRate getNewExchangeRate(RateSnapshot rateSnapshot, CurrencyCode currencyCode,
+                                                   BigDecimal rate) {
+        ExchangeRate exchangeRate = new ExchangeRate();
+        exchangeRate.setCurrencyCode(currencyCode);
+        exchangeRate.setEffectiveDate(rateSnapshot.getEffectiveDate());
+        exchangeRate.setRate(rate);
+        exchangeRate.setFetchedAt(rateSnapshot.getFetchedAt());
+        return exchangeRate;
+    }
+
+    private static RateSnapshot getRateSnapshot(List<ExchangeRate> exchangeRates) {
+        Map<CurrencyCode, BigDecimal> rates = new EnumMap<>(CurrencyCode.class);
+        LocalDateTime fetchedAt = LocalDateTime.MIN;
+        for (ExchangeRate exchangeRate : exchangeRates) {
+            rates.put(exchangeRate.getCurrencyCode(), exchangeRate.getRate());
+            if (exchangeRate.getFetchedAt() != null && exchangeRate.getFetchedAt().isAfter(fetchedAt)) {
+                fetchedAt = exchangeRate.getFetchedAt();
+            }
+        }
+        return new RateSnapshot(rates, exchangeRates.get(0).getEffectiveDate(), fetchedAt, true);
+    }
+}
@@ -0,0 +1,187 @@
+package com.training.rledenev.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.IdempotencyKey;
+import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.exception.IdempotencyKeyMismatchException;
+import com.training.rledenev.exception.InvalidIdempotencyKeyException;
+import com.training.rledenev.repository.IdempotencyKeyRepository;
+import com.training.rledenev.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Optional;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 64;
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Value("${bank.idempotency.cache.maximum-size:10000}")
+    private long cacheMaximumSize;
+
+    @Value("${bank.idempotency.retention:PT24H}")
+    private Duration retention;
+
+    private Cache<String, CompletedKey> completedKeys;
+
+    @PostConstruct
+    void initCache() {
+        completedKeys = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new KeyExpiry())
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<Long> findTransactionId(User user, String key, TransactionDto transactionDto) {
+        checkKey(key);
+        String cacheKey = getCacheKey(user, key);
+        CompletedKey completedKey = completedKeys.getIfPresent(cacheKey);
+        if (completedKey == null) {
+            Optional<IdempotencyKey> storedKey = idempotencyKeyRepository.findCompletedKey(user.getId(), key);
+            if (storedKey.isEmpty()) {
+                return Optional.empty();
+            }
+            completedKey = new CompletedKey(storedKey.get().getRequestHash(),
+                    storedKey.get().getTransaction().getId(), storedKey.get().getCreatedAt());
+            completedKeys.put(cacheKey, completedKey);
+        }
+        checkRequestHash(key, completedKey.requestHash, transactionDto);
+        return Optional.of(completedKey.transactionId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public IdempotencyKey reserveKey(User user, String key, TransactionDto transactionDto) {
+        checkKey(key);
+        IdempotencyKey idempotencyKey = new IdempotencyKey();
+        idempotencyKey.setUser(user);
+        idempotencyKey.setIdempotencyKey(key);
+        idempotencyKey.setRequestHash(getRequestHash(transactionDto));
+        idempotencyKey.setCreatedAt(LocalDateTime.now());
+        // Flushed first so a concurrent request with the same key waits here on the unique index.
+        return idempotencyKeyRepository.saveAndFlush(idempotencyKey);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void completeKey(IdempotencyKey idempotencyKey, Transaction transaction) {
+        idempotencyKey.setTransaction(transaction);
+        String cacheKey = getCacheKey(idempotencyKey.getUser(), idempotencyKey.getIdempotencyKey());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                completedKeys.put(cacheKey, new CompletedKey(idempotencyKey.getRequestHash(), transaction.getId(),
+                        idempotencyKey.getCreatedAt()));
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public boolean isKeyReserved(User user, String key) {
+        return idempotencyKeyRepository.isKeyReserved(user.getId(), key);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.idempotency.cleanup-interval:PT1H}")
+    @Transactional
+    @Override
+    public void deleteExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteAllCreatedBefore(LocalDateTime.now().minus(retention));
+        log.debug("Deleted {} expired idempotency keys", deleted);
+    }
+
+    @Override
+    public void checkKey(String key) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException("Idempotency key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    @Override
+    public String getRequestHash(TransactionDto transactionDto) {
+        String request = String.join("\n",
+                String.valueOf(transactionDto.getDebitAccountNumber()),
+                String.valueOf(transactionDto.getCreditAccountNumber()),
+                transactionDto.getAmount() == null ? "null"
+                        : transactionDto.getAmount().toBigDecimal().stripTrailingZeros().toPlainString(),
+                String.valueOf(transactionDto.getCurrencyCode()).toUpperCase(Locale.ROOT),
+                String.valueOf(transactionDto.getType()).toUpperCase(Locale.ROOT),
+                String.valueOf(transactionDto.getDescription()),
+                String.valueOf(transactionDto.getQuoteId()));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(request.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    @Override
+    public void checkRequestHash(String key, String storedRequestHash, TransactionDto transactionDto) {
+        // Keys stored before request hashing was introduced have no hash and are trusted as they are.
+        if (storedRequestHash != null && !storedRequestHash.equals(getRequestHash(transactionDto))) {
+            throw new IdempotencyKeyMismatchException("Idempotency key " + key + " was used for a different request");
+        }
+    }
+
+    private static String getCacheKey(User user, String key) {
+        return user.getId() + ":" + key;
+    }
+
+    private static final class CompletedKey {
+        private final String requestHash;
+        private final Long transactionId;
+        private final LocalDateTime createdAt;
+
+        private CompletedKey(String requestHash, Long transactionId, LocalDateTime createdAt) {
+            this.requestHash = requestHash;
+            this.transactionId = transactionId;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final class KeyExpiry implements Expiry<String, CompletedKey> {
+        @Override
+        public long expireAfterCreate(String cacheKey, CompletedKey completedKey, long currentTime) {
+            // A key lives for the retention counted from its creation, however late it was loaded into the cache.
+            Duration left = Duration.between(LocalDateTime.now(), completedKey.createdAt.plus(retention));
+            return left.isNegative() ? 0 : left.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String cacheKey, CompletedKey completedKey, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(cacheKey, completedKey, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String cacheKey, CompletedKey completedKey, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.entity.Account;
+import com.training.rledenev.entity.LedgerEntry;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.entity.enums.LedgerEntryType;
+import com.training.rledenev.repository.AccountRepository;
+import com.training.rledenev.repository.LedgerEntryRepository;
+import com.training.rledenev.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class LedgerServiceImpl implements LedgerService {
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Override
+    public void postTransactions(Collection<Transaction> transactions) {
+        List<LedgerEntry> entries = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            entries.add(getNewEntry(transaction, transaction.getDebitAccount(), LedgerEntryType.DEBIT,
+                    transaction.getDebitBalanceDifference().negate()));
+            entries.add(getNewEntry(transaction, transaction.getCreditAccount(), LedgerEntryType.CREDIT,
+                    transaction.getCreditBalanceDifference()));
+        }
+        ledgerEntryRepository.saveAll(entries);
+    }
+
+    @Scheduled(fixedDelayString = "${bank.ledger.snapshot.interval:PT1M}")
+    @Override
+    public void takeSnapshots() {
+        LocalDateTime snapshotAt = LocalDateTime.now();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        int snapshots = 0;
+        for (Number accountId : ledgerEntryRepository.findAccountIdsWithUnfoldedEntries()) {
+            Integer folded = transactionTemplate.execute(status -> takeSnapshot(accountId.longValue(), snapshotAt));
+            snapshots += folded == null || folded == 0 ? 0 : 1;
+        }
+        log.debug("Took {} balance snapshots at {}", snapshots, snapshotAt);
+    }
+
+    private int takeSnapshot(Long accountId, LocalDateTime snapshotAt) {
+        // Bumping snapshot_no locks the account row first. The entries are then tagged with the new number and only
+        // the tagged ones are folded, so an entry committed at any moment is either in the snapshot or in the tail.
+        accountRepository.startSnapshot(accountId, snapshotAt);
+        int folded = ledgerEntryRepository.markUnfoldedEntries(accountId);
+        accountRepository.foldSnapshot(accountId);
+        return folded;
+    }
+
+    private static LedgerEntry getNewEntry(Transaction transaction, Account account, LedgerEntryType type,
+                                           Money amount) {
+        LedgerEntry entry = new LedgerEntry();
+        entry.setTransaction(transaction);
+        entry.setAccount(account);
+        entry.setType(type);
+        entry.setAmount(amount);
+        entry.setCreatedAt(transaction.getCreatedAt());
+        return entry;
+    }
+}
@@ -0,0 +1,101 @@
+package com.training.rledenev.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.entity.enums.CurrencyCode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public final class NbpRatesTableParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Map<String, CurrencyCode> CURRENCY_CODES = Arrays.stream(CurrencyCode.values())
+            .collect(Collectors.toMap(CurrencyCode::name, Function.identity()));
+
+    private NbpRatesTableParser() {
+    }
+
+    public static RateSnapshot parse(InputStream body, LocalDateTime fetchedAt) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectToken(parser.nextToken(), JsonToken.START_ARRAY);
+            expectToken(parser.nextToken(), JsonToken.START_OBJECT);
+            // Only the first table is read, and reading stops as soon as both fields are known.
+            return readTable(parser, fetchedAt, true);
+        }
+    }
+
+    public static List<RateSnapshot> parseAll(InputStream body, LocalDateTime fetchedAt) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(body)) {
+            expectToken(parser.nextToken(), JsonToken.START_ARRAY);
+            List<RateSnapshot> tables = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                tables.add(readTable(parser, fetchedAt, false));
+            }
+            return tables;
+        }
+    }
+
+    private static RateSnapshot readTable(JsonParser parser, LocalDateTime fetchedAt, boolean stopWhenComplete)
+            throws IOException {
+        LocalDate effectiveDate = null;
+        Map<CurrencyCode, BigDecimal> rates = null;
+        while ((!stopWhenComplete || effectiveDate == null || rates == null)
+                && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.getCurrentName();
+            parser.nextToken();
+            if ("effectiveDate".equals(fieldName)) {
+                effectiveDate = LocalDate.parse(parser.getText());
+            } else if ("rates".equals(fieldName)) {
+                rates = readRates(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (effectiveDate == null || rates == null) {
+            throw new IOException("Rates table has no effectiveDate or rates");
+        }
+        return new RateSnapshot(rates, effectiveDate, fetchedAt);
+    }
+
+    private static Map<CurrencyCode, BigDecimal> readRates(JsonParser parser) throws IOException {
+        expectToken(parser.currentToken(), JsonToken.START_ARRAY);
+        Map<CurrencyCode, BigDecimal> rates = new EnumMap<>(CurrencyCode.class);
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            CurrencyCode currencyCode = null;
+            BigDecimal rate = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                parser.nextToken();
+                if ("code".equals(fieldName)) {
+                    currencyCode = CURRENCY_CODES.get(parser.getText());
+                } else if ("mid".equals(fieldName)) {
+                    rate = parser.getDecimalValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (currencyCode != null && rate != null) {
+                rates.put(currencyCode, rate);
+            }
+        }
+        return rates;
+    }
+
+    private static void expectToken(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Unexpected rates table token " + actual + ", expected " + expected);
+        }
+    }
+}
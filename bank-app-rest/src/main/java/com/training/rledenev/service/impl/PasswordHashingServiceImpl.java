@@ -0,0 +1,99 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.exception.TooManyRequestsException;
+import com.training.rledenev.service.PasswordHashingService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@RequiredArgsConstructor
+@Service
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+    private static final Timer ENCODE_TIMER = Timer.builder("bank.security.password-hashing.duration")
+            .tag("operation", "encode")
+            .description("Time spent hashing a new password")
+            .register(Metrics.globalRegistry);
+    private static final Timer MATCHES_TIMER = Timer.builder("bank.security.password-hashing.duration")
+            .tag("operation", "matches")
+            .description("Time spent checking a password against its hash")
+            .register(Metrics.globalRegistry);
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${bank.security.bcrypt.pool-size:2}")
+    private int poolSize;
+
+    @Value("${bank.security.bcrypt.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${bank.security.bcrypt.wait-timeout:PT5S}")
+    private Duration waitTimeout;
+
+    private ThreadPoolExecutor hashingExecutor;
+
+    @PostConstruct
+    void startHashingExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Fixed threads and a bounded queue keep BCrypt off the request threads and cap the CPU it can take.
+        hashingExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("bank.security.password-hashing.queue.depth", hashingExecutor,
+                        executor -> executor.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(Metrics.globalRegistry);
+    }
+
+    @PreDestroy
+    void stopHashingExecutor() {
+        hashingExecutor.shutdownNow();
+    }
+
+    @Override
+    public String encode(String rawPassword) {
+        return execute(ENCODE_TIMER, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return execute(MATCHES_TIMER, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T execute(Timer timer, Supplier<T> hashing) {
+        Future<T> result;
+        try {
+            result = hashingExecutor.submit(() -> timer.record(hashing));
+        } catch (RejectedExecutionException e) {
+            throw new TooManyRequestsException("Too many password checks in progress, try again later");
+        }
+        try {
+            return result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The caller gives up, so the hashing is cancelled too rather than left to hold a thread.
+            result.cancel(true);
+            throw new TooManyRequestsException("Password hashing is taking too long, try again later");
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.training.rledenev.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.training.rledenev.dto.RateQuoteDto;
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.Account;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.entity.RateQuote;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.CurrencyCode;
+import com.training.rledenev.exception.InvalidQuoteException;
+import com.training.rledenev.exception.NotOwnerException;
+import com.training.rledenev.security.UserProvider;
+import com.training.rledenev.service.AccountService;
+import com.training.rledenev.service.CurrencyService;
+import com.training.rledenev.service.RateQuoteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+@RequiredArgsConstructor
+@Service
+public class RateQuoteServiceImpl implements RateQuoteService {
+    private static final long SAME_CURRENCY_FACTOR = Money.factorOf(BigDecimal.ONE, BigDecimal.ONE);
+    private final AccountService accountService;
+    private final CurrencyService currencyService;
+    private final UserProvider userProvider;
+
+    @Value("${bank.transaction.quote.ttl:PT30S}")
+    private Duration quoteTtl;
+
+    @Value("${bank.transaction.quote.maximum-size:100000}")
+    private long quoteMaximumSize;
+
+    private Cache<String, RateQuote> quotes;
+
+    @PostConstruct
+    void initQuotes() {
+        quotes = Caffeine.newBuilder()
+                .maximumSize(quoteMaximumSize)
+                .expireAfterWrite(quoteTtl)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public RateQuoteDto createQuote(TransactionDto transactionDto) {
+        User owner = userProvider.getCurrentUser();
+        Account debitAccount = accountService.getAccountByNumber(transactionDto.getDebitAccountNumber());
+        if (!Objects.equals(debitAccount.getClient().getId(), owner.getId())) {
+            throw new NotOwnerException("Access Denied, wrong account owner");
+        }
+        Account creditAccount = accountService.getAccountByNumber(transactionDto.getCreditAccountNumber());
+        CurrencyCode currencyCode = CurrencyCode.valueOf(transactionDto.getCurrencyCode().toUpperCase());
+        RateQuote rateQuote = new RateQuote(UUID.randomUUID().toString(), currencyCode,
+                debitAccount.getCurrencyCode(), getConversionFactor(currencyCode, debitAccount.getCurrencyCode()),
+                creditAccount.getCurrencyCode(), getConversionFactor(currencyCode, creditAccount.getCurrencyCode()),
+                LocalDateTime.now().plus(quoteTtl));
+        quotes.put(getQuoteKey(owner, rateQuote.getQuoteId()), rateQuote);
+        return mapToDto(rateQuote, transactionDto.getAmount());
+    }
+
+    @Override
+    public RateQuote getQuote(String quoteId, User owner) {
+        RateQuote rateQuote = quotes.getIfPresent(getQuoteKey(owner, quoteId));
+        if (rateQuote == null || rateQuote.isExpired()) {
+            throw new InvalidQuoteException("Quote " + quoteId + " not found or expired");
+        }
+        return rateQuote;
+    }
+
+    private long getConversionFactor(CurrencyCode from, CurrencyCode to) {
+        if (from == to) {
+            return SAME_CURRENCY_FACTOR;
+        }
+        return currencyService.getRateSnapshot().getConversionFactor(from, to);
+    }
+
+    private static RateQuoteDto mapToDto(RateQuote rateQuote, Money amount) {
+        RateQuoteDto rateQuoteDto = new RateQuoteDto();
+        rateQuoteDto.setQuoteId(rateQuote.getQuoteId());
+        rateQuoteDto.setCurrencyCode(rateQuote.getCurrencyCode().toString());
+        rateQuoteDto.setDebitCurrencyCode(rateQuote.getDebitCurrencyCode().toString());
+        rateQuoteDto.setDebitConversionFactor(BigDecimal.valueOf(rateQuote.getDebitConversionFactor(), Money.SCALE));
+        rateQuoteDto.setCreditCurrencyCode(rateQuote.getCreditCurrencyCode().toString());
+        rateQuoteDto.setCreditConversionFactor(BigDecimal.valueOf(rateQuote.getCreditConversionFactor(),
+                Money.SCALE));
+        if (amount != null) {
+            // The same arithmetic as posting, so the amounts shown are the amounts that will be booked.
+            rateQuoteDto.setDebitBalanceDifference(amount.multiply(rateQuote.getDebitConversionFactor())
+                    .roundTo(rateQuote.getDebitCurrencyCode()));
+            rateQuoteDto.setCreditBalanceDifference(amount.multiply(rateQuote.getCreditConversionFactor())
+                    .roundTo(rateQuote.getCreditCurrencyCode()));
+        }
+        rateQuoteDto.setExpiresAt(rateQuote.getExpiresAt());
+        return rateQuoteDto;
+    }
+
+    private static String getQuoteKey(User owner, String quoteId) {
+        return owner.getId() + ":" + quoteId;
+    }
+}
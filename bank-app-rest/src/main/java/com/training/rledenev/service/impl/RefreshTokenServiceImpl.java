@@ -0,0 +1,168 @@
+package com.training.rledenev.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.training.rledenev.dto.TokenPairDto;
+import com.training.rledenev.entity.RefreshToken;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.exception.AuthenticationException;
+import com.training.rledenev.repository.RefreshTokenRepository;
+import com.training.rledenev.security.jwt.JwtProvider;
+import com.training.rledenev.service.RefreshTokenService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Optional;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+    private static final int TOKEN_BYTES = 32;
+    private static final String INVALID_TOKEN_MESSAGE = "Refresh token is not valid";
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtProvider jwtProvider;
+
+    @Value("${bank.security.refresh-token.ttl:P14D}")
+    private Duration ttl;
+
+    @Value("${bank.security.refresh-token.reuse-grace:PT30S}")
+    private Duration reuseGrace;
+
+    @Value("${bank.security.refresh-token.maximum-rotations:10000}")
+    private long maximumRotations;
+
+    // Pairs issued by rotations within the grace window, keyed by the hash of the rotated token. A client that
+    // retries a refresh, or sends it twice at once, gets the successor it was already issued instead of tripping
+    // reuse detection. Only the hash of a refresh token is ever stored, so the pair itself can only be kept here.
+    private Cache<String, Rotation> recentRotations;
+
+    @PostConstruct
+    void initRecentRotations() {
+        recentRotations = Caffeine.newBuilder()
+                .maximumSize(maximumRotations)
+                .expireAfterWrite(reuseGrace)
+                .build();
+    }
+
+    @Transactional
+    @Override
+    public TokenPairDto issueTokens(User user) {
+        return new TokenPairDto(jwtProvider.generateToken(user), createRefreshToken(user));
+    }
+
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    @Override
+    public TokenPairDto refreshTokens(String refreshToken) {
+        if (refreshToken == null) {
+            throw new AuthenticationException(INVALID_TOKEN_MESSAGE);
+        }
+        String tokenHash = getTokenHash(refreshToken);
+        RefreshToken storedToken = refreshTokenRepository.findByTokenHashForUpdate(tokenHash)
+                .orElseThrow(() -> new AuthenticationException(INVALID_TOKEN_MESSAGE));
+        LocalDateTime now = LocalDateTime.now();
+        if (storedToken.getRevokedAt() != null) {
+            Optional<TokenPairDto> issuedTokens = getUnusedSuccessor(tokenHash, now);
+            if (issuedTokens.isPresent()) {
+                log.debug("Repeated refresh of user {} within the grace window", storedToken.getUser().getId());
+                return issuedTokens.get();
+            }
+            // A rotated token presented again means it leaked, so every session of the user is ended.
+            int revoked = refreshTokenRepository.revokeAllOfUser(storedToken.getUser().getId(), now);
+            log.warn("Reuse of a rotated refresh token of user {}, revoked {} tokens", storedToken.getUser().getId(),
+                    revoked);
+            throw new AuthenticationException(INVALID_TOKEN_MESSAGE);
+        }
+        if (storedToken.getExpiresAt().isBefore(now)) {
+            throw new AuthenticationException(INVALID_TOKEN_MESSAGE);
+        }
+        storedToken.setRevokedAt(now);
+        TokenPairDto tokens = issueTokens(storedToken.getUser());
+        recentRotations.put(tokenHash, new Rotation(getTokenHash(tokens.getRefreshToken()), tokens));
+        return tokens;
+    }
+
+    @Transactional
+    @Override
+    public void revokeToken(String refreshToken) {
+        if (refreshToken == null) {
+            return;
+        }
+        refreshTokenRepository.findByTokenHashForUpdate(getTokenHash(refreshToken))
+                .filter(storedToken -> storedToken.getRevokedAt() == null)
+                .ifPresent(storedToken -> storedToken.setRevokedAt(LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${bank.security.refresh-token.cleanup-interval:PT1H}")
+    @Transactional
+    @Override
+    public void deleteExpiredTokens() {
+        int deleted = refreshTokenRepository.deleteAllExpiredBefore(LocalDateTime.now());
+        log.debug("Deleted {} expired refresh tokens", deleted);
+    }
+
+    private Optional<TokenPairDto> getUnusedSuccessor(String tokenHash, LocalDateTime now) {
+        Rotation rotation = recentRotations.getIfPresent(tokenHash);
+        if (rotation == null) {
+            return Optional.empty();
+        }
+        // Once the successor has been used or revoked itself, the old token is a replay like any other.
+        return refreshTokenRepository.findByTokenHashForUpdate(rotation.getSuccessorHash())
+                .filter(successor -> successor.getRevokedAt() == null && successor.getExpiresAt().isAfter(now))
+                .map(successor -> rotation.getTokens());
+    }
+
+    private String createRefreshToken(User user) {
+        byte[] tokenBytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(tokenBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setUser(user);
+        // Only the hash is stored, so a database dump does not hand out working tokens.
+        refreshToken.setTokenHash(getTokenHash(token));
+        refreshToken.setCreatedAt(LocalDateTime.now());
+        refreshToken.setExpiresAt(refreshToken.getCreatedAt().plus(ttl));
+        refreshTokenRepository.save(refreshToken);
+        return token;
+    }
+
+    private static String getTokenHash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static final class Rotation {
+        private final String successorHash;
+        private final TokenPairDto tokens;
+
+        private Rotation(String successorHash, TokenPairDto tokens) {
+            this.successorHash = successorHash;
+            this.tokens = tokens;
+        }
+
+        private String getSuccessorHash() {
+            return successorHash;
+        }
+
+        private TokenPairDto getTokens() {
+            return tokens;
+        }
+    }
+}
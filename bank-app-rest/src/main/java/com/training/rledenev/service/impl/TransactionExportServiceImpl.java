@@ -0,0 +1,134 @@
+package com.training.rledenev.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.entity.enums.ExportFormat;
+import com.training.rledenev.mapper.TransactionMapper;
+import com.training.rledenev.repository.TransactionRepository;
+import com.training.rledenev.service.AccountService;
+import com.training.rledenev.service.TransactionExportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@RequiredArgsConstructor
+@Service
+public class TransactionExportServiceImpl implements TransactionExportService {
+    private static final LocalDateTime EARLIEST_CREATED_AT = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_CREATED_AT = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final String CSV_HEADER = "debitAccountNumber,creditAccountNumber,amount,currencyCode," +
+            "debitBalanceDifference,creditBalanceDifference,type,description,createdAt\n";
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final AccountService accountService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${bank.transaction.export.clear-interval:500}")
+    private int clearInterval;
+
+    @Override
+    public StreamingResponseBody exportTransactionsOfAccount(String accountNumber, LocalDate from, LocalDate to,
+                                                             ExportFormat format) {
+        // Checked before streaming starts, so a refused export still gets a proper error status.
+        Long accountId = accountService.getAccountOfCurrentUserByNumber(accountNumber).getId();
+        LocalDateTime createdFrom = from == null ? EARLIEST_CREATED_AT : from.atStartOfDay();
+        LocalDateTime createdTo = to == null ? LATEST_CREATED_AT : to.plusDays(1).atStartOfDay();
+        return outputStream -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    writeTransactions(accountId, createdFrom, createdTo, format, outputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private void writeTransactions(Long accountId, LocalDateTime from, LocalDateTime to, ExportFormat format,
+                                   OutputStream outputStream) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+        // Pages are read by keyset through the per-column indexes, so every page costs the same however far in.
+        LocalDateTime lastCreatedAt = from;
+        long lastId = 0;
+        List<Number> transactionIds;
+        do {
+            transactionIds = transactionRepository.getTransactionIdsOfAccountBetween(accountId, lastCreatedAt,
+                    lastId, to, clearInterval);
+            for (Transaction transaction : getTransactionsInOrder(transactionIds)) {
+                TransactionDto transactionDto = transactionMapper.mapToDto(transaction);
+                if (format == ExportFormat.CSV) {
+                    writeCsvRow(writer, transactionDto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(transactionDto));
+                    writer.write('\n');
+                }
+                lastCreatedAt = transaction.getCreatedAt();
+                lastId = transaction.getId();
+            }
+            // Rows are not kept in the persistence context, so heap use does not grow with the export size.
+            entityManager.clear();
+            writer.flush();
+        } while (transactionIds.size() == clearInterval);
+    }
+
+    private List<Transaction> getTransactionsInOrder(List<Number> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = transactionIds.stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        Map<Long, Transaction> transactionsById = transactionRepository.getAllWithAccountsByIds(ids).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        return ids.stream()
+                .map(transactionsById::get)
+                .collect(Collectors.toList());
+    }
+
+    private static void writeCsvRow(Writer writer, TransactionDto transactionDto) throws IOException {
+        writer.write(String.join(",",
+                toCsvValue(transactionDto.getDebitAccountNumber()),
+                toCsvValue(transactionDto.getCreditAccountNumber()),
+                toCsvValue(transactionDto.getAmount()),
+                toCsvValue(transactionDto.getCurrencyCode()),
+                toCsvValue(transactionDto.getDebitBalanceDifference()),
+                toCsvValue(transactionDto.getCreditBalanceDifference()),
+                toCsvValue(transactionDto.getType()),
+                toCsvValue(transactionDto.getDescription()),
+                toCsvValue(transactionDto.getCreatedAt() == null ? null
+                        : transactionDto.getCreatedAt().toInstant())));
+        writer.write('\n');
+    }
+
+    private static String toCsvValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.contains(",") || text.contains("\"") || text.contains("\n") || text.contains("\r")) {
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+        return text;
+    }
+}
@@ -1,11 +1,20 @@
 package com.training.rledenev.service.impl;
 
 import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransactionPageDto;
+import com.training.rledenev.dto.TransactionResultDto;
 import com.training.rledenev.entity.Account;
+import com.training.rledenev.entity.IdempotencyKey;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.entity.RateQuote;
 import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.entity.User;
 import com.training.rledenev.entity.enums.CurrencyCode;
 import com.training.rledenev.entity.enums.TransactionType;
+import com.training.rledenev.exception.AccountNotFoundException;
+import com.training.rledenev.exception.IdempotencyKeyMismatchException;
 import com.training.rledenev.exception.InsufficientFundsException;
+import com.training.rledenev.exception.InvalidCursorException;
 import com.training.rledenev.exception.NotOwnerException;
 import com.training.rledenev.mapper.TransactionMapper;
 import com.training.rledenev.repository.AccountRepository;
@@ -13,92 +22,319 @@ import com.training.rledenev.repository.TransactionRepository;
 import com.training.rledenev.security.UserProvider;
 import com.training.rledenev.service.AccountService;
 import com.training.rledenev.service.CurrencyService;
+import com.training.rledenev.service.IdempotencyService;
+import com.training.rledenev.service.LedgerService;
+import com.training.rledenev.service.RateQuoteService;
 import com.training.rledenev.service.TransactionService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.List;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @RequiredArgsConstructor
 @Service
 public class TransactionServiceImpl implements TransactionService {
+    private static final String CURSOR_SEPARATOR = "_";
     private final TransactionMapper transactionMapper;
     private final TransactionRepository transactionRepository;
     private final AccountService accountService;
     private final CurrencyService currencyService;
     private final AccountRepository accountRepository;
     private final UserProvider userProvider;
+    private final LedgerService ledgerService;
+    private final IdempotencyService idempotencyService;
+    private final RateQuoteService rateQuoteService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${bank.transaction.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${bank.transaction.page.default-size:20}")
+    private int defaultPageSize;
+
+    @Value("${bank.transaction.page.max-size:100}")
+    private int maxPageSize;
+
+    @Value("${bank.transaction.history.fetch-size:500}")
+    private int historyFetchSize;
 
     @Transactional
     @Override
     public List<TransactionDto> getAllTransactionsOfAccount(String accountNumber) {
-        return transactionMapper.mapToListDto(transactionRepository
-                .getAllTransactionsWithAccountNumber(accountNumber));
+        List<Number> transactionIds = accountRepository.getByNumber(accountNumber)
+                .map(account -> transactionRepository.getTransactionIdsOfAccount(account.getId()))
+                .orElse(List.of());
+        return transactionMapper.mapToListDto(getTransactionsInOrder(transactionIds));
+    }
+
+    @Transactional
+    @Override
+    public TransactionPageDto getTransactionsPageOfAccount(String accountNumber, String cursor, Integer size) {
+        Long accountId = accountService.getAccountOfCurrentUserByNumber(accountNumber).getId();
+        int pageSize = size == null ? defaultPageSize : Math.max(1, Math.min(size, maxPageSize));
+        // One extra row tells whether another page exists without a count query.
+        List<Number> transactionIds;
+        if (cursor == null) {
+            transactionIds = transactionRepository.getFirstTransactionIdsPageOfAccount(accountId, pageSize + 1);
+        } else {
+            String[] position = decodeCursor(cursor);
+            transactionIds = transactionRepository.getTransactionIdsPageOfAccountAfter(accountId,
+                    LocalDateTime.parse(position[0]), Long.valueOf(position[1]), pageSize + 1);
+        }
+        List<Transaction> transactions = getTransactionsInOrder(transactionIds);
+        String nextCursor = null;
+        if (transactions.size() > pageSize) {
+            transactions = transactions.subList(0, pageSize);
+            nextCursor = encodeCursor(transactions.get(pageSize - 1));
+        }
+        return new TransactionPageDto(transactionMapper.mapToListDto(transactions), nextCursor);
     }
 
     @Transactional(isolation = Isolation.READ_COMMITTED)
     @Override
     public void createTransaction(TransactionDto transactionDto) {
-        Account debitAccount = accountService.getAccountByNumber(transactionDto.getDebitAccountNumber());
-        checkDebitAccountOwner(debitAccount);
-        Account creditAccount = accountService.getAccountByNumber(transactionDto.getCreditAccountNumber());
-        Transaction transaction = saveTransactionFromDto(transactionDto, debitAccount, creditAccount);
-        updateAccount(debitAccount, debitAccount.getBalance().subtract(transaction.getDebitBalanceDifference()));
-        updateAccount(creditAccount, creditAccount.getBalance().add(transaction.getCreditBalanceDifference()));
+        postTransaction(transactionDto, userProvider.getCurrentUser());
     }
 
-    @Transactional(isolation = Isolation.READ_COMMITTED)
     @Override
-    public void giveCreditFundsToAccount(Account creditAccount, BigDecimal amount) {
-        Account debitAccount = accountService.getMainBankAccount();
-        Transaction transaction = saveNewTransaction(creditAccount, amount, debitAccount);
-        updateAccount(debitAccount, debitAccount.getBalance().subtract(transaction.getDebitBalanceDifference()));
-        updateAccount(creditAccount, transaction.getCreditBalanceDifference());
+    public void createTransaction(TransactionDto transactionDto, String idempotencyKey) {
+        User owner = userProvider.getCurrentUser();
+        if (idempotencyService.findTransactionId(owner, idempotencyKey, transactionDto).isPresent()) {
+            return;
+        }
+        try {
+            getReadCommittedTransactionTemplate().executeWithoutResult(status -> {
+                IdempotencyKey reservedKey = idempotencyService.reserveKey(owner, idempotencyKey, transactionDto);
+                idempotencyService.completeKey(reservedKey, postTransaction(transactionDto, owner));
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (idempotencyService.findTransactionId(owner, idempotencyKey, transactionDto).isPresent()) {
+                return;
+            }
+            // A key that is taken but has no transaction was reserved by an asynchronous transfer.
+            if (idempotencyService.isKeyReserved(owner, idempotencyKey)) {
+                throw new IdempotencyKeyMismatchException("Idempotency key " + idempotencyKey
+                        + " was used for another transfer");
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<TransactionResultDto> createTransactions(List<TransactionDto> transactionDtos) {
+        return createTransactions(transactionDtos,
+                Collections.nCopies(transactionDtos.size(), userProvider.getCurrentUser()), chunkResults -> {
+                });
     }
 
-    private Transaction saveNewTransaction(Account creditAccount, BigDecimal amount, Account debitAccount) {
+    @Override
+    public List<TransactionResultDto> createTransactions(List<TransactionDto> transactionDtos, List<User> owners,
+                                                         Consumer<List<TransactionResultDto>> chunkResultsConsumer) {
+        TransactionTemplate transactionTemplate = getReadCommittedTransactionTemplate();
+        List<TransactionResultDto> results = new ArrayList<>(transactionDtos.size());
+        for (int from = 0; from < transactionDtos.size(); from += batchChunkSize) {
+            int offset = from;
+            int to = Math.min(from + batchChunkSize, transactionDtos.size());
+            List<TransactionDto> chunk = transactionDtos.subList(from, to);
+            List<User> chunkOwners = owners.subList(from, to);
+            results.addAll(postTransactionChunk(transactionTemplate, chunk, chunkOwners, offset,
+                    chunkResultsConsumer));
+        }
+        return results;
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    @Override
+    public void giveCreditFundsToAccount(Account creditAccount, Money amount) {
+        Account debitAccount = accountService.getMainBankAccount();
         Transaction transaction = getNewTransaction(creditAccount, amount);
-        setTransactionData(debitAccount, creditAccount, transaction);
+        setTransactionData(debitAccount, creditAccount, transaction, null);
         transaction.setCreditBalanceDifference(amount);
+        // The main bank account is never checked for funds, so its row is not locked: the debit is only appended as
+        // a ledger entry, and concurrent disbursements no longer queue on the hottest row in the bank.
         transactionRepository.save(transaction);
-        return transaction;
+        ledgerService.postTransactions(List.of(transaction));
     }
 
-    private Transaction saveTransactionFromDto(TransactionDto transactionDto, Account debitAccount,
-                                               Account creditAccount) {
+    private Transaction postTransaction(TransactionDto transactionDto, User owner) {
+        Account debitAccount = accountService.getAccountByNumber(transactionDto.getDebitAccountNumber());
+        checkDebitAccountOwner(debitAccount, owner);
+        Account creditAccount = accountService.getAccountByNumber(transactionDto.getCreditAccountNumber());
         Transaction transaction = transactionMapper.mapToEntity(transactionDto);
-        setTransactionData(debitAccount, creditAccount, transaction);
-        BigDecimal creditBalanceDifference = calculateBalanceDifference(transaction.getAmount(),
-                transaction.getCurrencyCode(), creditAccount.getCurrencyCode());
-        transaction.setCreditBalanceDifference(creditBalanceDifference);
+        setTransactionData(debitAccount, creditAccount, transaction, getRateQuote(transactionDto, owner));
+        accountService.lockAccountsInIdOrder(List.of(debitAccount));
+        applyBalanceDifferences(transaction);
         transactionRepository.save(transaction);
+        ledgerService.postTransactions(List.of(transaction));
         return transaction;
     }
 
-    private void updateAccount(Account account, BigDecimal balance) {
-        account.setBalance(balance);
-        account.setUpdatedAt(LocalDateTime.now());
-        accountRepository.save(account);
+    private List<Transaction> getTransactionsInOrder(List<Number> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = transactionIds.stream()
+                .map(Number::longValue)
+                .collect(Collectors.toList());
+        // The ids are loaded in bounded slices, so a long history never becomes one huge IN list.
+        Map<Long, Transaction> transactionsById = new HashMap<>(ids.size());
+        for (int from = 0; from < ids.size(); from += historyFetchSize) {
+            transactionRepository.getAllWithAccountsByIds(ids.subList(from, Math.min(from + historyFetchSize,
+                    ids.size()))).forEach(transaction -> transactionsById.put(transaction.getId(), transaction));
+        }
+        return ids.stream()
+                .map(transactionsById::get)
+                .collect(Collectors.toList());
+    }
+
+    private TransactionTemplate getReadCommittedTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return transactionTemplate;
     }
 
-    private void setTransactionData(Account debitAccount, Account creditAccount, Transaction transaction) {
-        BigDecimal debitBalanceDifference = calculateBalanceDifference(transaction.getAmount(),
-                transaction.getCurrencyCode(), debitAccount.getCurrencyCode());
-        if (debitBalanceDifference.compareTo(debitAccount.getBalance()) > 0) {
-            throw new InsufficientFundsException("Not enough money");
+    private List<TransactionResultDto> postTransactionChunk(TransactionTemplate transactionTemplate,
+                                                            List<TransactionDto> transactionDtos, List<User> owners,
+                                                            int offset,
+                                                            Consumer<List<TransactionResultDto>> chunkResultsConsumer) {
+        try {
+            return Objects.requireNonNull(transactionTemplate.execute(status ->
+                    postTransactionChunk(transactionDtos, owners, offset, chunkResultsConsumer)));
+        } catch (RuntimeException e) {
+            if (transactionDtos.size() == 1) {
+                log.warn("Transfer {} of the batch failed", offset, e);
+                return List.of(TransactionResultDto.failed(offset, "Transfer could not be posted"));
+            }
+            // Earlier chunks are already committed, so only this chunk is retried, one transfer per transaction.
+            log.warn("Chunk starting at transfer {} failed, posting its transfers one by one", offset, e);
+            List<TransactionResultDto> results = new ArrayList<>(transactionDtos.size());
+            for (int i = 0; i < transactionDtos.size(); i++) {
+                results.addAll(postTransactionChunk(transactionTemplate, transactionDtos.subList(i, i + 1),
+                        owners.subList(i, i + 1), offset + i, chunkResultsConsumer));
+            }
+            return results;
         }
-        transaction.setDebitBalanceDifference(debitBalanceDifference);
+    }
+
+    private List<TransactionResultDto> postTransactionChunk(List<TransactionDto> transactionDtos, List<User> owners,
+                                                            int offset,
+                                                            Consumer<List<TransactionResultDto>> chunkResultsConsumer) {
+        Map<String, Account> accountsByNumber = getAccountsByNumber(transactionDtos);
+        Transaction[] transactions = new Transaction[transactionDtos.size()];
+        TransactionResultDto[] results = new TransactionResultDto[transactionDtos.size()];
+        for (int i = 0; i < transactionDtos.size(); i++) {
+            try {
+                transactions[i] = prepareTransaction(transactionDtos.get(i), accountsByNumber, owners.get(i));
+            } catch (RuntimeException e) {
+                results[i] = TransactionResultDto.failed(offset + i, e.getMessage());
+            }
+        }
+
+        accountService.lockAccountsInIdOrder(Arrays.stream(transactions)
+                .filter(Objects::nonNull)
+                .map(Transaction::getDebitAccount)
+                .collect(Collectors.toList()));
+
+        List<Transaction> postedTransactions = new ArrayList<>(transactions.length);
+        for (int i = 0; i < transactions.length; i++) {
+            if (transactions[i] == null) {
+                continue;
+            }
+            try {
+                applyBalanceDifferences(transactions[i]);
+                postedTransactions.add(transactions[i]);
+                results[i] = TransactionResultDto.completed(offset + i);
+            } catch (RuntimeException e) {
+                results[i] = TransactionResultDto.failed(offset + i, e.getMessage());
+            }
+        }
+        transactionRepository.saveAll(postedTransactions);
+        ledgerService.postTransactions(postedTransactions);
+        // Runs inside the chunk transaction, so whatever the consumer records commits together with the chunk.
+        chunkResultsConsumer.accept(Arrays.asList(results));
+        return Arrays.asList(results);
+    }
+
+    private Transaction prepareTransaction(TransactionDto transactionDto, Map<String, Account> accountsByNumber,
+                                           User owner) {
+        Account debitAccount = getAccountFromMap(accountsByNumber, transactionDto.getDebitAccountNumber());
+        checkDebitAccountOwner(debitAccount, owner);
+        Account creditAccount = getAccountFromMap(accountsByNumber, transactionDto.getCreditAccountNumber());
+        if (transactionDto.getAmount() == null || transactionDto.getAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Amount must be positive");
+        }
+        Transaction transaction = transactionMapper.mapToEntity(transactionDto);
+        setTransactionData(debitAccount, creditAccount, transaction, getRateQuote(transactionDto, owner));
+        return transaction;
+    }
+
+    private Map<String, Account> getAccountsByNumber(List<TransactionDto> transactionDtos) {
+        Set<String> numbers = transactionDtos.stream()
+                .flatMap(transactionDto -> Stream.of(transactionDto.getDebitAccountNumber(),
+                        transactionDto.getCreditAccountNumber()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return accountRepository.getAllByNumbers(numbers).stream()
+                .collect(Collectors.toMap(Account::getNumber, Function.identity()));
+    }
+
+    private static Account getAccountFromMap(Map<String, Account> accountsByNumber, String accountNumber) {
+        Account account = accountsByNumber.get(accountNumber);
+        if (account == null) {
+            throw new AccountNotFoundException("Account not found with number " + accountNumber);
+        }
+        return account;
+    }
+
+    private static void applyBalanceDifferences(Transaction transaction) {
+        Account debitAccount = transaction.getDebitAccount();
+        Account creditAccount = transaction.getCreditAccount();
+        checkSufficientFunds(transaction.getDebitBalanceDifference(), debitAccount.getCurrentBalance());
+        debitAccount.setCurrentBalance(debitAccount.getCurrentBalance()
+                .subtract(transaction.getDebitBalanceDifference()));
+        creditAccount.setCurrentBalance(creditAccount.getCurrentBalance()
+                .add(transaction.getCreditBalanceDifference()));
+    }
+
+    private RateQuote getRateQuote(TransactionDto transactionDto, User owner) {
+        return transactionDto.getQuoteId() == null ? null
+                : rateQuoteService.getQuote(transactionDto.getQuoteId(), owner);
+    }
+
+    private void setTransactionData(Account debitAccount, Account creditAccount, Transaction transaction,
+                                    RateQuote rateQuote) {
+        transaction.setDebitBalanceDifference(calculateBalanceDifference(transaction.getAmount(),
+                transaction.getCurrencyCode(), debitAccount.getCurrencyCode(), rateQuote));
+        transaction.setCreditBalanceDifference(calculateBalanceDifference(transaction.getAmount(),
+                transaction.getCurrencyCode(), creditAccount.getCurrencyCode(), rateQuote));
         transaction.setCreatedAt(LocalDateTime.now());
         transaction.setDebitAccount(debitAccount);
         transaction.setCreditAccount(creditAccount);
     }
 
-    private static Transaction getNewTransaction(Account account, BigDecimal amount) {
+    private static void checkSufficientFunds(Money required, Money available) {
+        if (required.compareTo(available) > 0) {
+            throw new InsufficientFundsException("Not enough money");
+        }
+    }
+
+    private static Transaction getNewTransaction(Account account, Money amount) {
         Transaction transaction = new Transaction();
         transaction.setAmount(amount);
         transaction.setCurrencyCode(account.getCurrencyCode());
@@ -107,16 +343,40 @@ public class TransactionServiceImpl implements TransactionService {
         return transaction;
     }
 
-    private BigDecimal calculateBalanceDifference(BigDecimal amount, CurrencyCode transactionCurrency,
-                                                  CurrencyCode accountCurrency) {
-        BigDecimal rateTransactionCurrency = currencyService.getRateOfCurrency(transactionCurrency.toString());
-        BigDecimal rateAccountCurrency = currencyService.getRateOfCurrency(accountCurrency.toString());
-        BigDecimal rateOfConversion = rateTransactionCurrency.divide(rateAccountCurrency, 4, RoundingMode.HALF_UP);
-        return amount.multiply(rateOfConversion);
+    private Money calculateBalanceDifference(Money amount, CurrencyCode transactionCurrency,
+                                             CurrencyCode accountCurrency, RateQuote rateQuote) {
+        if (rateQuote != null) {
+            // A quoted transfer is booked at the locked factor and never looks up current rates.
+            return amount.multiply(rateQuote.getConversionFactor(transactionCurrency, accountCurrency))
+                    .roundTo(accountCurrency);
+        }
+        if (transactionCurrency == accountCurrency) {
+            return amount.roundTo(accountCurrency);
+        }
+        long rateOfConversion = currencyService.getRateSnapshot()
+                .getConversionFactor(transactionCurrency, accountCurrency);
+        return amount.multiply(rateOfConversion).roundTo(accountCurrency);
+    }
+
+    private static String encodeCursor(Transaction transaction) {
+        String position = transaction.getCreatedAt() + CURSOR_SEPARATOR + transaction.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(CURSOR_SEPARATOR);
+            LocalDateTime.parse(position[0]);
+            Long.parseLong(position[1]);
+            return position;
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid cursor " + cursor);
+        }
     }
 
-    private void checkDebitAccountOwner(Account debitAccount) {
-        if (!debitAccount.getClient().equals(userProvider.getCurrentUser())) {
+    private static void checkDebitAccountOwner(Account debitAccount, User owner) {
+        if (!Objects.equals(debitAccount.getClient().getId(), owner.getId())) {
             throw new NotOwnerException("Access Denied, wrong account owner");
         }
     }
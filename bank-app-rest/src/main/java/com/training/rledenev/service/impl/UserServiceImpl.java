@@ -10,10 +10,10 @@ import com.training.rledenev.exception.UserNotFoundException;
 import com.training.rledenev.mapper.UserMapper;
 import com.training.rledenev.repository.UserRepository;
 import com.training.rledenev.security.UserProvider;
+import com.training.rledenev.service.PasswordHashingService;
 import com.training.rledenev.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,15 +23,15 @@ import java.util.Optional;
 @RequiredArgsConstructor
 @Service
 public class UserServiceImpl implements UserService {
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final UserRepository userRepository;
     private final UserProvider userProvider;
     private final UserMapper userMapper;
 
-    @Transactional
     @Override
     public User saveNewClient(UserDto userDto) {
-        userDto.setPassword(passwordEncoder.encode(userDto.getPassword()));
+        // Hashed before any transaction starts, so no connection is held while waiting for a hashing thread.
+        userDto.setPassword(passwordHashingService.encode(userDto.getPassword()));
         User user = userMapper.mapToEntity(userDto);
         user.setRole(Role.CLIENT);
         user.setStatus(Status.ACTIVE);
@@ -45,13 +45,12 @@ public class UserServiceImpl implements UserService {
         return user;
     }
 
-    @Transactional
     @Override
     public User findByEmailAndPassword(String email, String password) {
         Optional<User> optionalUser = userRepository.findByEmail(email);
         if (optionalUser.isPresent()) {
             User user = optionalUser.get();
-            if (passwordEncoder.matches(password, user.getPassword())) {
+            if (passwordHashingService.matches(password, user.getPassword())) {
                 return user;
             }
         }
@@ -60,7 +59,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public Role getAuthorizedUserRole() {
-        return userProvider.getCurrentUser().getRole();
+        return userProvider.getCurrentUserDetails().getRole();
     }
 
     @Transactional
@@ -0,0 +1,75 @@
+package com.training.rledenev.benchmark;
+
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.entity.enums.CurrencyCode;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BalanceArithmeticBenchmark {
+    private static final int SIZE = 1024;
+
+    private final BigDecimal[] bigDecimalAmounts = new BigDecimal[SIZE];
+    private final Money[] moneyAmounts = new Money[SIZE];
+    private final BigDecimal rateTransactionCurrency = new BigDecimal("4.3521");
+    private final BigDecimal rateAccountCurrency = new BigDecimal("4.0173");
+    private RateSnapshot rateSnapshot;
+    private BigDecimal bigDecimalBalance;
+    private Money moneyBalance;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            bigDecimalAmounts[i] = amount;
+            moneyAmounts[i] = Money.of(amount);
+        }
+        rateSnapshot = new RateSnapshot(Map.of(CurrencyCode.USD, rateTransactionCurrency,
+                CurrencyCode.EUR, rateAccountCurrency), LocalDate.now(), LocalDateTime.now());
+        bigDecimalBalance = new BigDecimal("1000000000.0000");
+        moneyBalance = Money.of(bigDecimalBalance);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalBalanceDifference() {
+        BigDecimal amount = bigDecimalAmounts[index++ & (SIZE - 1)];
+        BigDecimal rateOfConversion = rateTransactionCurrency.divide(rateAccountCurrency, 4, RoundingMode.HALF_UP);
+        bigDecimalBalance = bigDecimalBalance.add(amount.multiply(rateOfConversion).negate());
+        return bigDecimalBalance;
+    }
+
+    @Benchmark
+    public Money moneyBalanceDifference() {
+        Money amount = moneyAmounts[index++ & (SIZE - 1)];
+        long rateOfConversion = Money.factorOf(rateTransactionCurrency, rateAccountCurrency);
+        moneyBalance = moneyBalance.subtract(amount.multiply(rateOfConversion).roundTo(CurrencyCode.EUR));
+        return moneyBalance;
+    }
+
+    @Benchmark
+    public Money moneyBalanceDifferenceWithConversionMatrix() {
+        Money amount = moneyAmounts[index++ & (SIZE - 1)];
+        long rateOfConversion = rateSnapshot.getConversionFactor(CurrencyCode.USD, CurrencyCode.EUR);
+        moneyBalance = moneyBalance.subtract(amount.multiply(rateOfConversion).roundTo(CurrencyCode.EUR));
+        return moneyBalance;
+    }
+
+    @Benchmark
+    public Money moneyBalanceDifferenceSameCurrency() {
+        Money amount = moneyAmounts[index++ & (SIZE - 1)];
+        moneyBalance = moneyBalance.subtract(amount.roundTo(CurrencyCode.EUR));
+        return moneyBalance;
+    }
+}
@@ -0,0 +1,33 @@
+package com.training.rledenev.benchmark;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Collection;
+
+@Tag("benchmark")
+class BalanceArithmeticBenchmarkTest {
+
+    @Test
+    void shouldCompareBigDecimalAndMoneyBalanceArithmetic() throws Exception {
+        // GCProfiler adds gc.alloc.rate and gc.alloc.rate.norm (bytes/op) next to the ns/op score.
+        Options options = new OptionsBuilder()
+                .include(BalanceArithmeticBenchmark.class.getName())
+                .addProfiler(GCProfiler.class)
+                .forks(Integer.getInteger("benchmark.forks", 1))
+                .warmupIterations(Integer.getInteger("benchmark.warmup-iterations", 3))
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(Integer.getInteger("benchmark.iterations", 5))
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+        Assertions.assertEquals(4, results.size());
+    }
+}
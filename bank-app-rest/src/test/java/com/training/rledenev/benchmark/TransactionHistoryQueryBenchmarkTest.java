@@ -0,0 +1,148 @@
+package com.training.rledenev.benchmark;
+
+import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest
+@Sql("/database/schema-cleanup.sql")
+@Sql("/database/create_tables.sql")
+@Sql("/database/add_test_data.sql")
+class TransactionHistoryQueryBenchmarkTest {
+    private static final int ACCOUNTS = Integer.getInteger("benchmark.accounts", 1_000);
+    private static final int TRANSACTIONS = Integer.getInteger("benchmark.transactions", 500_000);
+    private static final int QUERIES = Integer.getInteger("benchmark.queries", 200);
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final int FETCH_SIZE = 500;
+    private static final long FIRST_ACCOUNT_ID = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shouldCompareAccountHistoryQueries() {
+        // H2 plans differ from MySQL, so only the ratios between the four variants are meaningful here.
+        seedAccountsAndTransactions();
+
+        dropHistoryIndexes();
+        long orJoinNanos = measure(this::getHistoryWithOrJoin);
+        long unionAllNanos = measure(this::getHistoryWithUnionAll);
+
+        createHistoryIndexes();
+        long indexedOrJoinNanos = measure(this::getHistoryWithOrJoin);
+        long indexedUnionAllNanos = measure(this::getHistoryWithUnionAll);
+
+        log.info("Account history over {} transactions and {} accounts, {} queries, ms/query: " +
+                        "OR join {} without indexes, {} with indexes; UNION ALL {} without indexes, {} with indexes",
+                TRANSACTIONS, ACCOUNTS, QUERIES, toMillis(orJoinNanos), toMillis(indexedOrJoinNanos),
+                toMillis(unionAllNanos), toMillis(indexedUnionAllNanos));
+        Assertions.assertEquals(getHistoryWithOrJoin(FIRST_ACCOUNT_ID).size(),
+                getHistoryWithUnionAll(FIRST_ACCOUNT_ID).size());
+    }
+
+    private void dropHistoryIndexes() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_transactions_debit_created");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_transactions_credit_created");
+    }
+
+    private void createHistoryIndexes() {
+        jdbcTemplate.execute("CREATE INDEX idx_transactions_debit_created ON transactions " +
+                "(debit_account_id, created_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_transactions_credit_created ON transactions " +
+                "(credit_account_id, created_at)");
+    }
+
+    private List<Transaction> getHistoryWithOrJoin(long accountId) {
+        String accountNumber = jdbcTemplate.queryForObject("SELECT number FROM accounts WHERE id = ?",
+                String.class, accountId);
+        return entityManager.createQuery("select distinct t from Transaction t " +
+                        "where t.creditAccount.number = :accountNumber " +
+                        "or t.debitAccount.number = :accountNumber " +
+                        "order by t.createdAt desc", Transaction.class)
+                .setHint("javax.persistence.fetchgraph", entityManager.getEntityGraph("transaction-account-graph"))
+                .setParameter("accountNumber", accountNumber)
+                .getResultList();
+    }
+
+    private List<Transaction> getHistoryWithUnionAll(long accountId) {
+        List<Long> ids = new ArrayList<>();
+        for (Number id : transactionRepository.getTransactionIdsOfAccount(accountId)) {
+            ids.add(id.longValue());
+        }
+        List<Transaction> transactions = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += FETCH_SIZE) {
+            transactions.addAll(transactionRepository.getAllWithAccountsByIds(ids.subList(from,
+                    Math.min(from + FETCH_SIZE, ids.size()))));
+        }
+        return transactions;
+    }
+
+    private long measure(LongFunction<List<Transaction>> historyQuery) {
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            long accountId = FIRST_ACCOUNT_ID + random.nextInt(ACCOUNTS);
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> historyQuery.apply(accountId));
+            total += System.nanoTime() - start;
+        }
+        return total / QUERIES;
+    }
+
+    private void seedAccountsAndTransactions() {
+        List<Object[]> accounts = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accounts.add(new Object[]{FIRST_ACCOUNT_ID + i, String.format("9%015d", i)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO accounts (id, client_id, number, status, balance, currency_code) " +
+                "VALUES (?, 1, ?, 'ACTIVE', 0, 'USD')", accounts);
+
+        Random random = new Random(7);
+        LocalDateTime start = LocalDateTime.of(2020, 1, 1, 0, 0);
+        List<Object[]> transactions = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            long debitAccountId = FIRST_ACCOUNT_ID + random.nextInt(ACCOUNTS);
+            long creditAccountId = FIRST_ACCOUNT_ID + random.nextInt(ACCOUNTS);
+            transactions.add(new Object[]{debitAccountId, creditAccountId,
+                    Timestamp.valueOf(start.plusSeconds(i * 60L))});
+            if (transactions.size() == INSERT_BATCH_SIZE || i == TRANSACTIONS - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO transactions (debit_account_id, credit_account_id, type, " +
+                        "amount, currency_code, debit_balance_difference, credit_balance_difference, description, " +
+                        "created_at) VALUES (?, ?, 'TRANSFER', 10, 'USD', 10, 10, 'benchmark', ?)", transactions);
+                transactions.clear();
+            }
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,62 @@
+package com.training.rledenev.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+class PasswordEncoderConfigurationTest {
+
+    @Test
+    void shouldKeepConfiguredStrengthWhenCalibrationIsOff() {
+        //given
+        PasswordEncoderConfiguration configuration = newConfiguration(5, false, Duration.ofSeconds(10));
+
+        //when
+        String hash = configuration.getEncoder().encode("P@ssword1");
+
+        //then
+        Assertions.assertEquals(5, getStrength(hash));
+    }
+
+    @Test
+    void shouldNotGoBelowConfiguredStrengthWhenTargetIsTooShort() {
+        //given
+        PasswordEncoderConfiguration configuration = newConfiguration(4, true, Duration.ZERO);
+
+        //when
+        String hash = configuration.getEncoder().encode("P@ssword1");
+
+        //then
+        Assertions.assertEquals(4, getStrength(hash));
+    }
+
+    @Test
+    void shouldRaiseStrengthWhileHashStaysWithinTarget() {
+        //given
+        PasswordEncoderConfiguration configuration = newConfiguration(4, true, Duration.ofMillis(100));
+
+        //when
+        String hash = configuration.getEncoder().encode("P@ssword1");
+
+        //then
+        // A cost-4 hash takes about a millisecond, so at least one doubling fits into the target.
+        Assertions.assertTrue(getStrength(hash) > 4, hash);
+        Assertions.assertTrue(getStrength(hash) <= 16, hash);
+    }
+
+    private static PasswordEncoderConfiguration newConfiguration(int strength, boolean calibrationEnabled,
+                                                                 Duration targetTime) {
+        PasswordEncoderConfiguration configuration = new PasswordEncoderConfiguration();
+        ReflectionTestUtils.setField(configuration, "strength", strength);
+        ReflectionTestUtils.setField(configuration, "calibrationEnabled", calibrationEnabled);
+        ReflectionTestUtils.setField(configuration, "calibrationTargetTime", targetTime);
+        return configuration;
+    }
+
+    private static int getStrength(String hash) {
+        // BCrypt hashes look like $2a$<cost>$<salt and hash>.
+        return Integer.parseInt(hash.split("\\$")[2]);
+    }
+}
@@ -4,8 +4,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.training.rledenev.dto.AccountDto;
 import com.training.rledenev.dto.AgreementDto;
+import com.training.rledenev.entity.Money;
 import com.training.rledenev.entity.User;
 import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.repository.AccountRepository;
 import com.training.rledenev.security.CustomUserDetails;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
@@ -21,6 +23,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -39,6 +42,9 @@ class AgreementControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private AccountRepository accountRepository;
+
     @Test
     @WithUserDetails(value = "isabella.white@yopmail.com")
     void shouldCreateAgreement() throws Exception {
@@ -103,6 +109,7 @@ class AgreementControllerTest {
         agreementDto.setId(3L);
         agreementDto.setSum(11000.0);
         agreementDto.setInterestRate(3.8);
+        BigDecimal mainAccountBalanceBefore = accountRepository.getCurrentBalanceById(1L);
 
         UsernamePasswordAuthenticationToken authClient = getAuthenticationToken(getClient());
         UsernamePasswordAuthenticationToken authManager = getAuthenticationToken(getManager());
@@ -138,12 +145,59 @@ class AgreementControllerTest {
         AccountDto confirmedAccountDto = allAccountsConfirmedDtoOfUser.get(0);
 
         Assertions.assertEquals(allAccountsNotConfirmedDtoOfUser.size() + 1, allAccountsConfirmedDtoOfUser.size());
-        Assertions.assertEquals(agreementDto.getSum(), confirmedAccountDto.getBalance());
+        Assertions.assertEquals(Money.of(BigDecimal.valueOf(agreementDto.getSum())), confirmedAccountDto.getBalance());
         Assertions.assertEquals("Mia Clark", confirmedAccountDto.getManager());
         Assertions.assertEquals("ACTIVE", confirmedAccountDto.getStatus());
         Assertions.assertNotNull(confirmedAccountDto.getStartDate());
         Assertions.assertNotNull(confirmedAccountDto.getPaymentTerm());
+        Assertions.assertTrue(accountRepository.getCurrentBalanceById(1L).compareTo(mainAccountBalanceBefore) < 0);
+    }
+
+    @Test
+    void shouldConfirmDepositAgreementWithItsSumAsBalance() throws Exception {
+        // given
+        AgreementDto agreementDto = new AgreementDto();
+        agreementDto.setProductType("DEPOSIT");
+        agreementDto.setProductName("Children's Savings Deposit");
+        agreementDto.setCurrencyCode("EUR");
+        agreementDto.setSum(6000.0);
+
+        UsernamePasswordAuthenticationToken authClient = getAuthenticationToken(getClient());
+        UsernamePasswordAuthenticationToken authManager = getAuthenticationToken(getManager());
+
+        // when
+        SecurityContextHolder.getContext().setAuthentication(authClient);
+        String agreementId = mockMvc.perform(MockMvcRequestBuilders.post("/agreement/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(agreementDto)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        SecurityContextHolder.getContext().setAuthentication(authManager);
+        mockMvc.perform(MockMvcRequestBuilders.put("/agreement/confirm/" + agreementId)
+                        .with(securityContext(SecurityContextHolder.getContext()))
+                        .with(csrf()))
+                .andExpect(status().isOk());
+
+        SecurityContextHolder.getContext().setAuthentication(authClient);
+        String accountDtosJson = mockMvc.perform(MockMvcRequestBuilders.get("/account/all/client"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
 
+        // then
+        List<AccountDto> accountDtos = objectMapper.readValue(accountDtosJson, new TypeReference<>() {});
+        AccountDto depositAccountDto = accountDtos.stream()
+                .filter(accountDto -> agreementDto.getProductName().equals(accountDto.getProductName()))
+                .findFirst()
+                .orElseThrow();
+
+        Assertions.assertEquals("ACTIVE", depositAccountDto.getStatus());
+        Assertions.assertEquals(Money.of(BigDecimal.valueOf(agreementDto.getSum())), depositAccountDto.getBalance());
     }
 
     @Test
@@ -1,9 +1,11 @@
 package com.training.rledenev.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.rledenev.dto.TokenPairDto;
 import com.training.rledenev.dto.UserDto;
 import com.training.rledenev.entity.enums.Role;
 import com.training.rledenev.security.jwt.JwtProvider;
+import com.training.rledenev.service.RefreshTokenService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +18,16 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -34,6 +46,9 @@ class AuthControllerTest {
     @Autowired
     private JwtProvider jwtProvider;
 
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     @Test
     @WithUserDetails(value = "isabella.white@yopmail.com")
     void shouldGetAuthRole() throws Exception {
@@ -73,4 +88,101 @@ class AuthControllerTest {
 
         Assertions.assertEquals(userDto.getEmail(), actualEmail);
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldRotateRefreshTokenAndRejectReuse() throws Exception {
+        // given
+        TokenPairDto issuedTokens = postForTokens("/auth/token", getCredentialsJson());
+        TokenPairDto refreshedTokens = postForTokens("/auth/refresh", objectMapper.writeValueAsString(issuedTokens));
+
+        // when
+        TokenPairDto nextTokens = postForTokens("/auth/refresh", objectMapper.writeValueAsString(refreshedTokens));
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(issuedTokens)))
+                .andExpect(status().isForbidden());
+
+        // then
+        Assertions.assertEquals("mia.clark@yopmail.com",
+                jwtProvider.getEmailFromToken(refreshedTokens.getAccessToken()));
+        Assertions.assertNotEquals(issuedTokens.getRefreshToken(), refreshedTokens.getRefreshToken());
+        Assertions.assertNotEquals(refreshedTokens.getRefreshToken(), nextTokens.getRefreshToken());
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(nextTokens)))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldAnswerRetriedRefreshWithAlreadyIssuedTokens() throws Exception {
+        // given
+        TokenPairDto issuedTokens = postForTokens("/auth/token", getCredentialsJson());
+        String issuedTokensJson = objectMapper.writeValueAsString(issuedTokens);
+        TokenPairDto refreshedTokens = postForTokens("/auth/refresh", issuedTokensJson);
+
+        // when
+        TokenPairDto retriedTokens = postForTokens("/auth/refresh", issuedTokensJson);
+
+        // then
+        Assertions.assertEquals(refreshedTokens.getRefreshToken(), retriedTokens.getRefreshToken());
+        Assertions.assertEquals(refreshedTokens.getAccessToken(), retriedTokens.getAccessToken());
+        TokenPairDto nextTokens = postForTokens("/auth/refresh", objectMapper.writeValueAsString(retriedTokens));
+        Assertions.assertNotEquals(refreshedTokens.getRefreshToken(), nextTokens.getRefreshToken());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldAnswerConcurrentRefreshesWithSameTokens() throws Exception {
+        // given
+        TokenPairDto issuedTokens = postForTokens("/auth/token", getCredentialsJson());
+        int refreshes = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(refreshes);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TokenPairDto>> results = new ArrayList<>();
+
+        // when
+        try {
+            for (int i = 0; i < refreshes; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.refreshTokens(issuedTokens.getRefreshToken());
+                }));
+            }
+            start.countDown();
+            Set<String> refreshTokens = new HashSet<>();
+            for (Future<TokenPairDto> result : results) {
+                refreshTokens.add(result.get(30, TimeUnit.SECONDS).getRefreshToken());
+            }
+
+            // then
+            Assertions.assertEquals(1, refreshTokens.size());
+            postForTokens("/auth/refresh", objectMapper.writeValueAsString(
+                    new TokenPairDto(null, refreshTokens.iterator().next())));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private String getCredentialsJson() throws Exception {
+        UserDto userDto = new UserDto();
+        userDto.setEmail("mia.clark@yopmail.com");
+        userDto.setPassword("P@ssword1");
+        return objectMapper.writeValueAsString(userDto);
+    }
+
+    private TokenPairDto postForTokens(String path, String content) throws Exception {
+        String tokensJson = mockMvc.perform(MockMvcRequestBuilders.post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(content))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(tokensJson, TokenPairDto.class);
+    }
+}
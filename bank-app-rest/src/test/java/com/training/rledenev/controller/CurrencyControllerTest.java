@@ -1,20 +1,38 @@
 package com.training.rledenev.controller;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.rledenev.dto.ExchangeRateDto;
+import com.training.rledenev.dto.RateTableDto;
+import com.training.rledenev.entity.RateSnapshot;
 import com.training.rledenev.entity.enums.CurrencyCode;
 import com.training.rledenev.service.CurrencyApiRequestService;
-import org.json.JSONObject;
+import com.training.rledenev.service.impl.CachingCurrencyService;
+import com.training.rledenev.service.impl.NbpRatesTableParser;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -26,6 +44,12 @@ class CurrencyControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CachingCurrencyService cachingCurrencyService;
+
     @MockBean
     private CurrencyApiRequestService currencyApiRequestService;
 
@@ -34,33 +58,174 @@ class CurrencyControllerTest {
     void shouldGetCurrency() throws Exception {
         //given
         String mockEurRate = "4.5";
-        JSONObject mockEurResponse = getMockJsonEurApiResponse(mockEurRate);
+        RateSnapshot mockTableResponse = getMockTableApiResponse(mockEurRate, "4.1");
+
+        //when
+        when(currencyApiRequestService.getRatesTable()).thenReturn(mockTableResponse);
+        cachingCurrencyService.refreshRates();
+        String eurRateResult = getCurrencyRate(CurrencyCode.EUR);
+
+        //then
+        Assertions.assertEquals(mockEurRate, eurRateResult);
+        verify(currencyApiRequestService, times(1)).getRatesTable();
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldGetAllRatesFromOneTableRequest() throws Exception {
+        //given
+        String mockEurRate = "4.5";
+        String mockUsdRate = "4.1";
+        RateSnapshot mockTableResponse = getMockTableApiResponse(mockEurRate, mockUsdRate);
+
+        //when
+        when(currencyApiRequestService.getRatesTable()).thenReturn(mockTableResponse);
+        cachingCurrencyService.refreshRates();
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(mockEurRate, getCurrencyRate(CurrencyCode.EUR));
+            Assertions.assertEquals(mockUsdRate, getCurrencyRate(CurrencyCode.USD));
+        }
+
+        //then
+        verify(currencyApiRequestService, times(1)).getRatesTable();
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldGetCurrencyRateHistoryFromStoredTables() throws Exception {
+        //given
+        String mockEurRate = "4.5";
+        RateSnapshot mockTableResponse = getMockTableApiResponse(mockEurRate, "4.1");
+        when(currencyApiRequestService.getRatesTable()).thenReturn(mockTableResponse);
+        cachingCurrencyService.refreshRates();
+
+        //when
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/currency/" + CurrencyCode.EUR + "/history")
+                        .param("from", "2023-10-01")
+                        .param("to", "2023-10-31"))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<ExchangeRateDto> history = objectMapper.readValue(result.getResponse().getContentAsString(),
+                new TypeReference<>() {
+                });
+
+        //then
+        Assertions.assertEquals(1, history.size());
+        Assertions.assertEquals(LocalDate.of(2023, 10, 27), history.get(0).getEffectiveDate());
+        Assertions.assertEquals(0, new BigDecimal(mockEurRate).compareTo(history.get(0).getRate()));
+        verify(currencyApiRequestService, times(1)).getRatesTable();
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldGetAllRatesWithETagAndAnswerNotModified() throws Exception {
+        //given
+        String mockEurRate = "4.5";
+        String mockUsdRate = "4.1";
+        RateSnapshot mockTableResponse = getMockTableApiResponse(mockEurRate, mockUsdRate);
+        when(currencyApiRequestService.getRatesTable()).thenReturn(mockTableResponse);
+        cachingCurrencyService.refreshRates();
 
         //when
-        when(currencyApiRequestService.getCurrencyJsonObject(CurrencyCode.EUR.toString())).thenReturn(mockEurResponse);
-        String eurRateResult = mockMvc.perform(MockMvcRequestBuilders.get("/currency/" + CurrencyCode.EUR))
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/currency/all"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age")))
+                .andReturn();
+        RateTableDto rateTable = objectMapper.readValue(result.getResponse().getContentAsString(), RateTableDto.class);
+        String eTag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        MvcResult notModified = mockMvc.perform(MockMvcRequestBuilders.get("/currency/all")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andReturn();
+
+        //then
+        Assertions.assertEquals(LocalDate.of(2023, 10, 27), rateTable.getEffectiveDate());
+        Assertions.assertEquals(new BigDecimal(mockEurRate), rateTable.getRates().get(CurrencyCode.EUR));
+        Assertions.assertEquals(new BigDecimal(mockUsdRate), rateTable.getRates().get(CurrencyCode.USD));
+        Assertions.assertEquals(0, notModified.getResponse().getContentAsByteArray().length);
+        verify(currencyApiRequestService, times(1)).getRatesTable();
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldChangeETagWhenRatesOfSameDateChange() throws Exception {
+        //given
+        when(currencyApiRequestService.getRatesTable()).thenReturn(getMockTableApiResponse("4.5", "4.1"));
+        cachingCurrencyService.refreshRates();
+        String eTag = getAllRatesETag();
+        when(currencyApiRequestService.getRatesTable()).thenReturn(getMockTableApiResponse("4.50", "4.1"));
+        cachingCurrencyService.refreshRates();
+        String sameRatesETag = getAllRatesETag();
+        when(currencyApiRequestService.getRatesTable()).thenReturn(getMockTableApiResponse("4.5", "4.2"));
+
+        //when
+        cachingCurrencyService.refreshRates();
+        String changedRatesETag = getAllRatesETag();
+
+        //then
+        Assertions.assertEquals(eTag, sameRatesETag);
+        Assertions.assertNotEquals(eTag, changedRatesETag);
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotGetCurrencyRateOlderThanMaxStale() throws Exception {
+        //given
+        RateSnapshot mockTableResponse = getMockTableApiResponse("4.5", "4.1")
+                .withFetchedAt(LocalDateTime.now().minusHours(24 + 48 + 1));
+        when(currencyApiRequestService.getRatesTable()).thenReturn(mockTableResponse);
+        cachingCurrencyService.refreshRates();
+        when(currencyApiRequestService.getRatesTable()).thenThrow(new IOException("NBP is down"));
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.get("/currency/" + CurrencyCode.EUR))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    private String getAllRatesETag() throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/currency/all"))
                 .andExpect(status().isOk())
                 .andReturn()
                 .getResponse()
-                .getContentAsString();
+                .getHeader(HttpHeaders.ETAG);
+    }
 
-        //then
-        Assertions.assertEquals(mockEurRate, eurRateResult);
-        verify(currencyApiRequestService, times(1)).getCurrencyJsonObject(CurrencyCode.EUR.toString());
+    private String getCurrencyRate(CurrencyCode currencyCode) throws Exception {
+        return mockMvc.perform(MockMvcRequestBuilders.get("/currency/" + currencyCode))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
     }
 
-    private JSONObject getMockJsonEurApiResponse(String mockEurRate) {
-        return new JSONObject("{\n" +
-                "    \"table\": \"A\",\n" +
-                "    \"currency\": \"euro\",\n" +
-                "    \"code\": \"EUR\",\n" +
-                "    \"rates\": [\n" +
-                "        {\n" +
-                "            \"no\": \"209/A/NBP/2023\",\n" +
-                "            \"effectiveDate\": \"2023-10-27\",\n" +
-                "            \"mid\": " + mockEurRate + "\n" +
-                "        }\n" +
-                "    ]\n" +
-                "}");
+    private RateSnapshot getMockTableApiResponse(String mockEurRate, String mockUsdRate) throws IOException {
+        String json = "[\n" +
+                "    {\n" +
+                "        \"table\": \"A\",\n" +
+                "        \"no\": \"209/A/NBP/2023\",\n" +
+                "        \"effectiveDate\": \"2023-10-27\",\n" +
+                "        \"rates\": [\n" +
+                "            {\n" +
+                "                \"currency\": \"dolar amerykański\",\n" +
+                "                \"code\": \"USD\",\n" +
+                "                \"mid\": " + mockUsdRate + "\n" +
+                "            },\n" +
+                "            {\n" +
+                "                \"currency\": \"euro\",\n" +
+                "                \"code\": \"EUR\",\n" +
+                "                \"mid\": " + mockEurRate + "\n" +
+                "            },\n" +
+                "            {\n" +
+                "                \"currency\": \"bat (Tajlandia)\",\n" +
+                "                \"code\": \"THB\",\n" +
+                "                \"mid\": 0.1150\n" +
+                "            }\n" +
+                "        ]\n" +
+                "    }\n" +
+                "]";
+        return NbpRatesTableParser.parse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                LocalDateTime.now());
     }
-}
\ No newline at end of file
+}
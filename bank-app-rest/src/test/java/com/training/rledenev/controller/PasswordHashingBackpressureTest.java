@@ -0,0 +1,87 @@
+package com.training.rledenev.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.rledenev.dto.UserDto;
+import com.training.rledenev.exception.TooManyRequestsException;
+import com.training.rledenev.service.PasswordHashingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Sql("/database/schema-cleanup.sql")
+@Sql("/database/create_tables.sql")
+@Sql("/database/add_test_data.sql")
+class PasswordHashingBackpressureTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private PasswordHashingService passwordHashingService;
+
+    @Test
+    @WithMockUser
+    void shouldAnswerTooManyRequestsWhenPasswordChecksAreSaturated() throws Exception {
+        //given
+        UserDto userDto = new UserDto();
+        userDto.setEmail("mia.clark@yopmail.com");
+        userDto.setPassword("P@ssword1");
+        when(passwordHashingService.matches(any(), any()))
+                .thenThrow(new TooManyRequestsException("Too many password checks in progress, try again later"));
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/auth/token")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    @WithMockUser
+    void shouldHashNewClientPasswordOutsideTransaction() throws Exception {
+        //given
+        UserDto userDto = new UserDto();
+        userDto.setFirstName("Olivia");
+        userDto.setLastName("Brown");
+        userDto.setEmail("olivia.brown@yopmail.com");
+        userDto.setPassword("P@ssword1");
+        userDto.setAddress("12 Oak St");
+        userDto.setPhone("+48111222333");
+        AtomicBoolean hashedInTransaction = new AtomicBoolean(true);
+        when(passwordHashingService.encode(any())).thenAnswer(invocation -> {
+            hashedInTransaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+            return "hash";
+        });
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/user/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isCreated());
+
+        //then
+        Assertions.assertFalse(hashedInTransaction.get());
+    }
+}
@@ -4,24 +4,37 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.training.rledenev.dto.AccountDto;
 import com.training.rledenev.dto.ErrorData;
+import com.training.rledenev.dto.RateQuoteDto;
 import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransactionPageDto;
+import com.training.rledenev.dto.TransactionResultDto;
+import com.training.rledenev.dto.TransferStatusDto;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.service.LedgerService;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -37,6 +50,12 @@ class TransactionControllerTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     @WithUserDetails(value = "isabella.white@yopmail.com")
     void shouldGetAllTransactionsOfAccount() throws Exception {
@@ -61,6 +80,104 @@ class TransactionControllerTest {
         Assertions.assertEquals(expected, allTransactionsDtoOfAccount);
     }
 
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldGetTransactionsOfAccountPageByPage() throws Exception {
+        //given
+        String accountNumber = "6123456789012345";
+        List<TransactionDto> expected = getTransactionsOfThirdAccount();
+
+        //when
+        TransactionPageDto firstPage = getTransactionsPage(accountNumber, null);
+        TransactionPageDto secondPage = getTransactionsPage(accountNumber, firstPage.getNextCursor());
+
+        //then
+        Assertions.assertEquals(List.of(expected.get(1)), firstPage.getTransactions());
+        Assertions.assertNotNull(firstPage.getNextCursor());
+        Assertions.assertEquals(List.of(expected.get(0)), secondPage.getTransactions());
+        Assertions.assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotGetTransactionsPageOfAccountNotOwner() throws Exception {
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.get("/transaction/page")
+                        .param("accountNumber", "4561234567890123"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithUserDetails(value = "mia.clark@yopmail.com")
+    void shouldGetTransactionsPageOfAnyAccountAsManager() throws Exception {
+        //given
+        List<TransactionDto> expected = getTransactionsOfThirdAccount();
+
+        //when
+        TransactionPageDto firstPage = getTransactionsPage("6123456789012345", null);
+
+        //then
+        Assertions.assertEquals(List.of(expected.get(1)), firstPage.getTransactions());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldExportTransactionsOfAccountAsCsv() throws Exception {
+        //given
+        String accountNumber = "6123456789012345";
+
+        //when
+        MvcResult exportResult = mockMvc.perform(MockMvcRequestBuilders.get("/transaction/export")
+                        .param("accountNumber", accountNumber)
+                        .param("from", "2023-09-03")
+                        .param("to", "2023-09-03")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String exportCsv = mockMvc.perform(asyncDispatch(exportResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        List<String> lines = exportCsv.lines().collect(Collectors.toList());
+
+        Assertions.assertEquals(3, lines.size());
+        Assertions.assertTrue(lines.get(0).startsWith("debitAccountNumber,creditAccountNumber,amount"));
+        Assertions.assertTrue(lines.get(1).startsWith("1234567890123456,6123456789012345,1037.58,USD"));
+        Assertions.assertTrue(lines.get(2).startsWith("6123456789012345,4561234567890123,845.67,USD"));
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotExportTransactionsOfAccountNotOwner() throws Exception {
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.get("/transaction/export")
+                        .param("accountNumber", "4561234567890123")
+                        .param("format", "CSV"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithUserDetails(value = "mia.clark@yopmail.com")
+    void shouldExportTransactionsOfAnyAccountAsManager() throws Exception {
+        //when
+        MvcResult exportResult = mockMvc.perform(MockMvcRequestBuilders.get("/transaction/export")
+                        .param("accountNumber", "6123456789012345")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String exportCsv = mockMvc.perform(asyncDispatch(exportResult))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        Assertions.assertEquals(3, exportCsv.lines().count());
+    }
+
     @Test
     @WithUserDetails(value = "isabella.white@yopmail.com")
     void shouldCreateTransaction() throws Exception {
@@ -105,18 +222,227 @@ class TransactionControllerTest {
                 debitAccountDtoAfterTransaction.getBalance());
         Assertions.assertNotEquals(creditAccountDtoBeforeTransaction.getBalance(),
                 creditAccountDtoAfterTransaction.getBalance());
-        Assertions.assertEquals(debitAccountDtoBeforeTransaction.getBalance() - transactionDto.getAmount(),
+        Assertions.assertEquals(debitAccountDtoBeforeTransaction.getBalance().subtract(transactionDto.getAmount()),
                 debitAccountDtoAfterTransaction.getBalance());
-        Assertions.assertEquals(creditAccountDtoBeforeTransaction.getBalance() + transactionDto.getAmount(),
+        Assertions.assertEquals(creditAccountDtoBeforeTransaction.getBalance().add(transactionDto.getAmount()),
                 creditAccountDtoAfterTransaction.getBalance());
     }
 
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldCreateTransactionOnceForRepeatedIdempotencyKey() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        String transactionDtoJson = objectMapper.writeValueAsString(transactionDto);
+        AccountDto debitAccountDtoBeforeTransaction = getAccountsOfClient().get(0);
+
+        //when
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header("Idempotency-Key", "6f1c2a4e-1b7d-4c55-9a0e-3f2b8d7c9e10")
+                            .with(csrf())
+                            .content(transactionDtoJson))
+                    .andExpect(status().isCreated());
+        }
+
+        //then
+        AccountDto debitAccountDtoAfterTransaction = getAccountsOfClient().get(0);
+
+        Assertions.assertEquals(debitAccountDtoBeforeTransaction.getBalance().subtract(transactionDto.getAmount()),
+                debitAccountDtoAfterTransaction.getBalance());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotReuseIdempotencyKeyForDifferentRequest() throws Exception {
+        //given
+        String idempotencyKey = "0d9e8f7a-6b5c-4d3e-8f2a-1b0c9d8e7f6a";
+        TransactionDto transactionDto = getTransactionDto();
+        TransactionDto otherTransactionDto = getTransactionDto();
+        otherTransactionDto.setAmount(Money.of("500"));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(transactionDto)))
+                .andExpect(status().isCreated());
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(otherTransactionDto)))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotCreateTransactionInvalidIdempotencyKey() throws Exception {
+        //given
+        String transactionDtoJson = objectMapper.writeValueAsString(getTransactionDto());
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", "k".repeat(65))
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldCreateTransactionAsynchronously() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        String transactionDtoJson = objectMapper.writeValueAsString(transactionDto);
+
+        //when
+        String acceptedTransferJson = mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        TransferStatusDto acceptedTransfer = objectMapper.readValue(acceptedTransferJson, TransferStatusDto.class);
+        TransferStatusDto transferStatus = awaitTransferStatus(acceptedTransfer.getTransferId());
+
+        Assertions.assertEquals("PENDING", acceptedTransfer.getStatus());
+        Assertions.assertEquals("COMPLETED", transferStatus.getStatus());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldKeepBalanceWhenEntryLandsOnSnapshotBoundary() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        String transactionDtoJson = objectMapper.writeValueAsString(transactionDto);
+        AccountDto debitAccountDtoBeforeTransaction = getAccountsOfClient().get(0);
+        Money expectedBalance = debitAccountDtoBeforeTransaction.getBalance()
+                .subtract(transactionDto.getAmount())
+                .subtract(Money.of("1"));
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isCreated());
+        ledgerService.takeSnapshots();
+        jdbcTemplate.update("INSERT INTO ledger_entries (account_id, transaction_id, type, amount, created_at) " +
+                "SELECT a.id, 1, 'DEBIT', -1, a.snapshot_at FROM accounts a WHERE a.number = ?",
+                transactionDto.getDebitAccountNumber());
+        AccountDto debitAccountDtoAfterBoundaryEntry = getAccountsOfClient().get(0);
+        ledgerService.takeSnapshots();
+        AccountDto debitAccountDtoAfterNextSnapshot = getAccountsOfClient().get(0);
+
+        //then
+        Assertions.assertEquals(expectedBalance, debitAccountDtoAfterBoundaryEntry.getBalance());
+        Assertions.assertEquals(expectedBalance, debitAccountDtoAfterNextSnapshot.getBalance());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldCreateTransactionAsynchronouslyOnceForRepeatedIdempotencyKey() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        String transactionDtoJson = objectMapper.writeValueAsString(transactionDto);
+        AccountDto debitAccountDtoBeforeTransaction = getAccountsOfClient().get(0);
+
+        //when
+        List<TransferStatusDto> acceptedTransfers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String acceptedTransferJson = mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                            .param("async", "true")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .header("Idempotency-Key", "5c4b3a29-1807-4f6e-9d5c-4b3a29180706")
+                            .with(csrf())
+                            .content(transactionDtoJson))
+                    .andExpect(status().isAccepted())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            acceptedTransfers.add(objectMapper.readValue(acceptedTransferJson, TransferStatusDto.class));
+        }
+        TransferStatusDto transferStatus = awaitTransferStatus(acceptedTransfers.get(0).getTransferId());
+
+        //then
+        AccountDto debitAccountDtoAfterTransaction = getAccountsOfClient().get(0);
+
+        Assertions.assertEquals(acceptedTransfers.get(0).getTransferId(), acceptedTransfers.get(1).getTransferId());
+        Assertions.assertEquals("COMPLETED", transferStatus.getStatus());
+        Assertions.assertEquals(debitAccountDtoBeforeTransaction.getBalance().subtract(transactionDto.getAmount()),
+                debitAccountDtoAfterTransaction.getBalance());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotReuseAsynchronousIdempotencyKeyForSynchronousTransfer() throws Exception {
+        //given
+        String idempotencyKey = "3e2d1c0b-9a87-4f65-b432-10fedcba9876";
+        String transactionDtoJson = objectMapper.writeValueAsString(getTransactionDto());
+        String acceptedTransferJson = mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isAccepted())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        awaitTransferStatus(objectMapper.readValue(acceptedTransferJson, TransferStatusDto.class).getTransferId());
+        AccountDto debitAccountDtoBeforeRetry = getAccountsOfClient().get(0);
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isUnprocessableEntity());
+
+        //then
+        Assertions.assertEquals(debitAccountDtoBeforeRetry.getBalance(), getAccountsOfClient().get(0).getBalance());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotReuseSynchronousIdempotencyKeyForAsynchronousTransfer() throws Exception {
+        //given
+        String idempotencyKey = "9a8b7c6d-5e4f-4a3b-8c2d-1e0f9a8b7c6d";
+        String transactionDtoJson = objectMapper.writeValueAsString(getTransactionDto());
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isCreated());
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
     @Test
     @WithUserDetails(value = "isabella.white@yopmail.com")
     void shouldNotCreateTransactionNotEnoughMoney() throws Exception {
         //given
         TransactionDto transactionDto = getTransactionDto();
-        transactionDto.setAmount(16000.0);
+        transactionDto.setAmount(Money.of("16000"));
         String transactionDtoJson = objectMapper.writeValueAsString(transactionDto);
 
         //when
@@ -167,12 +493,163 @@ class TransactionControllerTest {
         Assertions.assertEquals("Access Denied, wrong account owner", errorData.getMessage());
     }
 
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldCreateTransactionAtQuotedRate() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        transactionDto.setCurrencyCode("EUR");
+        transactionDto.setAmount(Money.of("100"));
+        AccountDto debitAccountDtoBeforeTransaction = getAccountsOfClient().get(0);
+
+        //when
+        String rateQuoteJson = mockMvc.perform(MockMvcRequestBuilders.post("/transaction/quote")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(transactionDto)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        RateQuoteDto rateQuoteDto = objectMapper.readValue(rateQuoteJson, RateQuoteDto.class);
+        transactionDto.setQuoteId(rateQuoteDto.getQuoteId());
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(objectMapper.writeValueAsString(transactionDto)))
+                .andExpect(status().isCreated());
+
+        //then
+        AccountDto debitAccountDtoAfterTransaction = getAccountsOfClient().get(0);
+
+        Assertions.assertNotNull(rateQuoteDto.getExpiresAt());
+        Assertions.assertEquals("USD", rateQuoteDto.getDebitCurrencyCode());
+        Assertions.assertEquals(debitAccountDtoBeforeTransaction.getBalance()
+                        .subtract(rateQuoteDto.getDebitBalanceDifference()),
+                debitAccountDtoAfterTransaction.getBalance());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldNotCreateTransactionUnknownQuote() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        transactionDto.setQuoteId("0b6f9d3e-5a2c-4e8f-9d1a-7c3b2e4f6a80");
+        String transactionDtoJson = objectMapper.writeValueAsString(transactionDto);
+
+        //when
+        mockMvc.perform(MockMvcRequestBuilders.post("/transaction/create")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(transactionDtoJson))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldCreateTransactionsInBatchWithPerItemResults() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        TransactionDto tooLargeTransactionDto = getTransactionDto();
+        tooLargeTransactionDto.setAmount(Money.of("16000"));
+        TransactionDto notOwnedTransactionDto = getTransactionDto();
+        notOwnedTransactionDto.setDebitAccountNumber("4561234567890123");
+        String transactionDtosJson = objectMapper.writeValueAsString(List.of(transactionDto, tooLargeTransactionDto,
+                notOwnedTransactionDto));
+
+        //when
+        String resultsJson = mockMvc.perform(MockMvcRequestBuilders.post("/transaction/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(transactionDtosJson))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        List<TransactionResultDto> results = objectMapper.readValue(resultsJson, new TypeReference<>() {});
+
+        Assertions.assertEquals(List.of(
+                new TransactionResultDto(0, "COMPLETED", null),
+                new TransactionResultDto(1, "FAILED", "Not enough money"),
+                new TransactionResultDto(2, "FAILED", "Access Denied, wrong account owner")), results);
+    }
+
+    @Test
+    @WithUserDetails(value = "isabella.white@yopmail.com")
+    void shouldKeepOtherBatchResultsWhenTransferFailsToPersist() throws Exception {
+        //given
+        TransactionDto transactionDto = getTransactionDto();
+        TransactionDto unpersistableTransactionDto = getTransactionDto();
+        unpersistableTransactionDto.setDescription("x".repeat(300));
+        String transactionDtosJson = objectMapper.writeValueAsString(List.of(transactionDto,
+                unpersistableTransactionDto, transactionDto));
+        AccountDto debitAccountDtoBeforeTransaction = getAccountsOfClient().get(0);
+
+        //when
+        String resultsJson = mockMvc.perform(MockMvcRequestBuilders.post("/transaction/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .with(csrf())
+                        .content(transactionDtosJson))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        //then
+        List<TransactionResultDto> results = objectMapper.readValue(resultsJson, new TypeReference<>() {});
+        AccountDto debitAccountDtoAfterTransaction = getAccountsOfClient().get(0);
+
+        Assertions.assertEquals(List.of("COMPLETED", "FAILED", "COMPLETED"), results.stream()
+                .map(TransactionResultDto::getStatus)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(debitAccountDtoBeforeTransaction.getBalance()
+                        .subtract(transactionDto.getAmount())
+                        .subtract(transactionDto.getAmount()),
+                debitAccountDtoAfterTransaction.getBalance());
+    }
+
+    private TransactionPageDto getTransactionsPage(String accountNumber, String cursor) throws Exception {
+        MockHttpServletRequestBuilder requestBuilder = MockMvcRequestBuilders.get("/transaction/page")
+                .param("accountNumber", accountNumber)
+                .param("size", "1");
+        if (cursor != null) {
+            requestBuilder.param("cursor", cursor);
+        }
+        String transactionsPageJson = mockMvc.perform(requestBuilder)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(transactionsPageJson, TransactionPageDto.class);
+    }
+
+    private TransferStatusDto awaitTransferStatus(String transferId) throws Exception {
+        String transferStatusJson = mockMvc.perform(MockMvcRequestBuilders.get("/transaction/status/" + transferId)
+                        .param("waitMillis", "5000"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(transferStatusJson, TransferStatusDto.class);
+    }
+
+    private List<AccountDto> getAccountsOfClient() throws Exception {
+        String accountsOfClientJson = mockMvc.perform(MockMvcRequestBuilders.get("/account/all/client"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readValue(accountsOfClientJson, new TypeReference<>() {});
+    }
+
     private TransactionDto getTransactionDto() {
         TransactionDto transactionDto = new TransactionDto();
         transactionDto.setDebitAccountNumber("1234567890123456");
         transactionDto.setCreditAccountNumber("6123456789012345");
         transactionDto.setCurrencyCode("USD");
-        transactionDto.setAmount(1000.0);
+        transactionDto.setAmount(Money.of("1000"));
         transactionDto.setType("CASH");
         transactionDto.setDescription("test");
         return transactionDto;
@@ -182,10 +659,10 @@ class TransactionControllerTest {
         TransactionDto transactionDto1 = new TransactionDto();
         transactionDto1.setDebitAccountNumber("1234567890123456");
         transactionDto1.setCreditAccountNumber("6123456789012345");
-        transactionDto1.setAmount(1037.58);
+        transactionDto1.setAmount(Money.of("1037.58"));
         transactionDto1.setCurrencyCode("USD");
-        transactionDto1.setDebitBalanceDifference(1037.0);
-        transactionDto1.setCreditBalanceDifference(1037.0);
+        transactionDto1.setDebitBalanceDifference(Money.of("1037"));
+        transactionDto1.setCreditBalanceDifference(Money.of("1037"));
         transactionDto1.setType("CASH");
         transactionDto1.setDescription("for ice cream");
         transactionDto1.setCreatedAt(getDateFromString());
@@ -193,10 +670,10 @@ class TransactionControllerTest {
         TransactionDto transactionDto2 = new TransactionDto();
         transactionDto2.setDebitAccountNumber("6123456789012345");
         transactionDto2.setCreditAccountNumber("4561234567890123");
-        transactionDto2.setAmount(845.67);
+        transactionDto2.setAmount(Money.of("845.67"));
         transactionDto2.setCurrencyCode("USD");
-        transactionDto2.setDebitBalanceDifference(845.0);
-        transactionDto2.setCreditBalanceDifference(845.0);
+        transactionDto2.setDebitBalanceDifference(Money.of("845"));
+        transactionDto2.setCreditBalanceDifference(Money.of("845"));
         transactionDto2.setType("CASH");
         transactionDto2.setDescription("for ice cream");
         transactionDto2.setCreatedAt(getDateFromString());
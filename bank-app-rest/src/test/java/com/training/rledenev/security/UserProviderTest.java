@@ -0,0 +1,73 @@
+package com.training.rledenev.security;
+
+import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.entity.enums.Status;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest
+@Sql("/database/schema-cleanup.sql")
+@Sql("/database/create_tables.sql")
+@Sql("/database/add_test_data.sql")
+class UserProviderTest {
+    private static final String EMAIL = "isabella.white@yopmail.com";
+
+    @Autowired
+    private UserProvider userProvider;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void shouldGetCurrentUserAsReferenceWithoutReadingIt() {
+        //given
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, EMAIL);
+        authenticate(new CustomUserDetails(userId, EMAIL, Role.CLIENT, Status.ACTIVE));
+
+        //when
+        boolean initialized = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            User user = userProvider.getCurrentUser();
+            Assertions.assertEquals(userId, user.getId());
+            return Hibernate.isInitialized(user);
+        }));
+
+        //then
+        Assertions.assertFalse(initialized);
+    }
+
+    @Test
+    void shouldLoadCurrentUserReferenceOnFirstUse() {
+        //given
+        Long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, EMAIL);
+        authenticate(new CustomUserDetails(userId, EMAIL, Role.CLIENT, Status.ACTIVE));
+
+        //when
+        String firstName = transactionTemplate.execute(status -> userProvider.getCurrentUser().getFirstName());
+
+        //then
+        Assertions.assertEquals("Isabella", firstName);
+    }
+
+    private static void authenticate(CustomUserDetails customUserDetails) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                customUserDetails, null, customUserDetails.getAuthorities()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.training.rledenev.security.jwt;
+
+import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.entity.enums.Status;
+import com.training.rledenev.repository.UserRepository;
+import com.training.rledenev.security.CustomUserDetails;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+@SpringBootTest
+@Sql("/database/schema-cleanup.sql")
+@Sql("/database/create_tables.sql")
+@Sql("/database/add_test_data.sql")
+class JwtFilterTest {
+    @Autowired
+    private JwtFilter jwtFilter;
+
+    @Autowired
+    private JwtProvider jwtProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void shouldAuthenticateFromTokenClaimsWithoutReadingUser() throws Exception {
+        //given
+        String email = "isabella.white@yopmail.com";
+        String token = generateToken(email);
+        // Changed behind the entity listener, so only a principal read from the database would see it.
+        jdbcTemplate.update("UPDATE users SET role = 'MANAGER' WHERE email = ?", email);
+
+        //when
+        CustomUserDetails principal = authenticate(token).orElseThrow();
+
+        //then
+        Assertions.assertEquals(email, principal.getEmail());
+        Assertions.assertEquals(Role.CLIENT, principal.getRole());
+        Assertions.assertNull(principal.getPassword());
+    }
+
+    @Test
+    void shouldRefuseTokenIssuedBeforeRoleChange() throws Exception {
+        //given
+        String email = "james.harris@yopmail.com";
+        String token = generateToken(email);
+        Assertions.assertTrue(authenticate(token).isPresent());
+
+        //when
+        updateUser(email, user -> user.setRole(Role.MANAGER));
+
+        //then
+        Assertions.assertTrue(authenticate(token).isEmpty());
+        Assertions.assertFalse(jwtProvider.validateToken(token));
+        Assertions.assertEquals(Role.MANAGER, authenticate(generateToken(email)).orElseThrow().getRole());
+    }
+
+    @Test
+    void shouldRefuseTokenIssuedBeforeStatusChange() throws Exception {
+        //given
+        String email = "mia.clark@yopmail.com";
+        String token = generateToken(email);
+        Assertions.assertTrue(authenticate(token).isPresent());
+
+        //when
+        updateUser(email, user -> user.setStatus(Status.BLOCKED));
+
+        //then
+        Assertions.assertTrue(authenticate(token).isEmpty());
+        Assertions.assertEquals(Status.BLOCKED, authenticate(generateToken(email)).orElseThrow().getStatus());
+    }
+
+    @Test
+    void shouldKeepAcceptingTokenWhenUserChangeRollsBack() throws Exception {
+        //given
+        String email = "isabella.white@yopmail.com";
+        String token = generateToken(email);
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            userRepository.findByEmail(email).orElseThrow().setRole(Role.MANAGER);
+            userRepository.flush();
+            status.setRollbackOnly();
+        });
+
+        //then
+        Assertions.assertEquals(Role.CLIENT, authenticate(token).orElseThrow().getRole());
+    }
+
+    private String generateToken(String email) {
+        return jwtProvider.generateToken(userRepository.findByEmail(email).orElseThrow());
+    }
+
+    private void updateUser(String email, Consumer<User> update) {
+        transactionTemplate.executeWithoutResult(status -> update.accept(userRepository.findByEmail(email)
+                .orElseThrow()));
+    }
+
+    private Optional<CustomUserDetails> authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        AtomicReference<Authentication> authentication = new AtomicReference<>();
+        try {
+            jwtFilter.doFilter(request, new MockHttpServletResponse(), (filteredRequest, response) ->
+                    authentication.set(SecurityContextHolder.getContext().getAuthentication()));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return Optional.ofNullable(authentication.get())
+                .map(auth -> (CustomUserDetails) auth.getPrincipal());
+    }
+}
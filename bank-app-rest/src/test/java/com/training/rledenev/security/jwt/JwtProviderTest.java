@@ -0,0 +1,132 @@
+package com.training.rledenev.security.jwt;
+
+import com.training.rledenev.entity.User;
+import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.entity.enums.Status;
+import com.training.rledenev.security.ChangedPrincipals;
+import com.training.rledenev.security.CustomUserDetails;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+
+class JwtProviderTest {
+    private static final String SECRET = "test-secret";
+
+    @Test
+    void shouldServeRepeatedTokenFromCache() {
+        //given
+        JwtProvider jwtProvider = newJwtProvider(Duration.ofMinutes(15));
+        String token = jwtProvider.generateToken(newUser());
+        CustomUserDetails first = jwtProvider.getUserDetails(token).orElseThrow();
+
+        //when
+        CustomUserDetails second = jwtProvider.getUserDetails(token).orElseThrow();
+
+        //then
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(7L, second.getId());
+        Assertions.assertEquals(Role.CLIENT, second.getRole());
+    }
+
+    @Test
+    void shouldReportTokenCacheHitRatio() {
+        //given
+        JwtProvider jwtProvider = newJwtProvider(Duration.ofMinutes(15));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        jwtProvider.bindMetrics(meterRegistry);
+        String token = jwtProvider.generateToken(newUser());
+
+        //when
+        jwtProvider.getUserDetails(token);
+        jwtProvider.getUserDetails(token);
+
+        //then
+        Assertions.assertEquals(0.5, meterRegistry.get("bank.security.token-cache.hit-ratio").gauge().value());
+        Assertions.assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "verified-tokens")
+                .tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void shouldStopAcceptingCachedTokenAtExpiration() throws InterruptedException {
+        //given
+        JwtProvider jwtProvider = newJwtProvider(Duration.ofSeconds(1));
+        String token = jwtProvider.generateToken(newUser());
+        Assertions.assertTrue(jwtProvider.getUserDetails(token).isPresent());
+
+        //when
+        Thread.sleep(1100);
+
+        //then
+        Assertions.assertTrue(jwtProvider.getUserDetails(token).isEmpty());
+    }
+
+    @Test
+    void shouldNotServeTamperedTokenFromCache() {
+        //given
+        JwtProvider jwtProvider = newJwtProvider(Duration.ofMinutes(15));
+        String token = jwtProvider.generateToken(newUser());
+        Assertions.assertTrue(jwtProvider.getUserDetails(token).isPresent());
+        String[] parts = token.split("\\.");
+        String managerClaims = "{\"sub\":\"isabella.white@yopmail.com\",\"uid\":7,\"role\":\"MANAGER\","
+                + "\"status\":\"ACTIVE\",\"exp\":" + (System.currentTimeMillis() / 1000 + 900) + "}";
+        String tamperedClaims = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(managerClaims.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+        String tamperedSignature = token.substring(0, token.length() - 2)
+                + (token.endsWith("AA") ? "BB" : "AA");
+
+        //when
+        boolean claimsAccepted = jwtProvider.getUserDetails(tamperedClaims).isPresent();
+        boolean signatureAccepted = jwtProvider.getUserDetails(tamperedSignature).isPresent();
+
+        //then
+        Assertions.assertFalse(claimsAccepted);
+        Assertions.assertFalse(signatureAccepted);
+    }
+
+    @Test
+    void shouldRefuseTokenWithoutUserClaims() {
+        //given
+        JwtProvider jwtProvider = newJwtProvider(Duration.ofMinutes(15));
+        String token = Jwts.builder()
+                .setSubject("isabella.white@yopmail.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS256, SECRET)
+                .compact();
+
+        //when
+        boolean accepted = jwtProvider.validateToken(token);
+
+        //then
+        Assertions.assertFalse(accepted);
+    }
+
+    private static JwtProvider newJwtProvider(Duration accessTokenTtl) {
+        ChangedPrincipals changedPrincipals = new ChangedPrincipals();
+        ReflectionTestUtils.setField(changedPrincipals, "accessTokenTtl", accessTokenTtl);
+        ReflectionTestUtils.setField(changedPrincipals, "maximumSize", 100L);
+        ReflectionTestUtils.invokeMethod(changedPrincipals, "initPrincipals");
+        JwtProvider jwtProvider = new JwtProvider(changedPrincipals);
+        ReflectionTestUtils.setField(jwtProvider, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtProvider, "accessTokenTtl", accessTokenTtl);
+        ReflectionTestUtils.setField(jwtProvider, "tokenCacheMaximumSize", 100L);
+        jwtProvider.initVerifiedTokens();
+        return jwtProvider;
+    }
+
+    private static User newUser() {
+        User user = new User();
+        user.setId(7L);
+        user.setEmail("isabella.white@yopmail.com");
+        user.setRole(Role.CLIENT);
+        user.setStatus(Status.ACTIVE);
+        return user;
+    }
+}
@@ -0,0 +1,66 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.entity.Account;
+import com.training.rledenev.mapper.AccountMapper;
+import com.training.rledenev.repository.AccountRepository;
+import com.training.rledenev.security.UserProvider;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class AccountServiceImplTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void addMeterRegistry() {
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void removeMeterRegistry() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void shouldLockDistinctAccountsInAscendingIdOrder() {
+        //given
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        when(accountRepository.getCurrentBalanceById(anyLong())).thenReturn(BigDecimal.TEN);
+        AccountServiceImpl accountService = new AccountServiceImpl(mock(AccountMapper.class), accountRepository,
+                mock(UserProvider.class));
+        Account third = getAccount(3L);
+        Account first = getAccount(1L);
+        Account second = getAccount(2L);
+        Timer lockWaitTimer = meterRegistry.get("bank.account.lock.wait").timer();
+        long lockWaitsBefore = lockWaitTimer.count();
+
+        //when
+        accountService.lockAccountsInIdOrder(List.of(third, first, second, third));
+
+        //then
+        InOrder inOrder = inOrder(accountRepository);
+        inOrder.verify(accountRepository).lockById(1L);
+        inOrder.verify(accountRepository).lockById(2L);
+        inOrder.verify(accountRepository).lockById(3L);
+        verify(accountRepository, times(3)).lockById(anyLong());
+        Assertions.assertEquals(lockWaitsBefore + 1, lockWaitTimer.count());
+        Assertions.assertEquals(0, BigDecimal.TEN.compareTo(first.getCurrentBalance().toBigDecimal()));
+    }
+
+    private static Account getAccount(Long id) {
+        Account account = new Account();
+        account.setId(id);
+        return account;
+    }
+}
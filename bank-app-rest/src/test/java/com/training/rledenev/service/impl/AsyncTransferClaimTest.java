@@ -0,0 +1,92 @@
+package com.training.rledenev.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.repository.AccountRepository;
+import com.training.rledenev.service.AsyncTransferService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@SpringBootTest
+@Sql("/database/schema-cleanup.sql")
+@Sql("/database/create_tables.sql")
+@Sql("/database/add_test_data.sql")
+class AsyncTransferClaimTest {
+    private static final int TRANSFERS = 20;
+
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void shouldPostResumedTransferOnceWhenTwoWritersDrainIt() throws Exception {
+        //given
+        TransactionDto transactionDto = new TransactionDto();
+        transactionDto.setDebitAccountNumber("1234567890123456");
+        transactionDto.setCreditAccountNumber("6123456789012345");
+        transactionDto.setCurrencyCode("USD");
+        transactionDto.setAmount(Money.of("100"));
+        transactionDto.setType("CASH");
+        transactionDto.setDescription("resumed");
+        String request = objectMapper.writeValueAsString(transactionDto);
+        for (int i = 0; i < TRANSFERS; i++) {
+            jdbcTemplate.update("INSERT INTO async_transfers (transfer_id, user_id, request, status, created_at, " +
+                    "updated_at) VALUES (?, 1, ?, 'PENDING', '2023-09-03 12:00:00', '2023-09-03 12:00:00')",
+                    UUID.randomUUID().toString(), request);
+        }
+        Long debitAccountId = accountRepository.getByNumber("1234567890123456").orElseThrow().getId();
+        BigDecimal balanceBefore = accountRepository.getCurrentBalanceById(debitAccountId);
+        AsyncTransferServiceImpl writer = AopTestUtils.getTargetObject(asyncTransferService);
+        ReflectionTestUtils.setField(writer, "resumePending", true);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //when
+        // Both writers see the same PENDING rows, as an old and a new instance do during a rolling deploy.
+        List<CompletableFuture<Void>> writers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            writers.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                writer.resumePendingTransfers();
+            }));
+        }
+        start.countDown();
+        for (CompletableFuture<Void> resumingWriter : writers) {
+            resumingWriter.get(60, TimeUnit.SECONDS);
+        }
+        ReflectionTestUtils.setField(writer, "resumePending", false);
+
+        //then
+        BigDecimal expectedBalance = balanceBefore.subtract(BigDecimal.valueOf(100L * TRANSFERS));
+        Assertions.assertEquals(0, expectedBalance.compareTo(accountRepository.getCurrentBalanceById(debitAccountId)));
+        Assertions.assertEquals(TRANSFERS, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM async_transfers WHERE status = 'COMPLETED'", Integer.class));
+    }
+}
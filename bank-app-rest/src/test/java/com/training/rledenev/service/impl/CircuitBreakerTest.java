@@ -0,0 +1,104 @@
+package com.training.rledenev.service.impl;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+class CircuitBreakerTest {
+
+    @Test
+    void shouldOpenAfterFailureThreshold() {
+        //given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofHours(1));
+
+        //when
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+            circuitBreaker.onFailure();
+        }
+        CircuitBreaker.State stateBelowThreshold = circuitBreaker.getState();
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onFailure();
+
+        //then
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, stateBelowThreshold);
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void shouldResetFailureCountOnSuccess() {
+        //given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofHours(1));
+
+        //when
+        circuitBreaker.onFailure();
+        circuitBreaker.onSuccess();
+        circuitBreaker.onFailure();
+
+        //then
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void shouldLetOneProbeThroughAfterOpenDuration() {
+        //given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ZERO);
+        circuitBreaker.onFailure();
+
+        //when
+        boolean probe = circuitBreaker.tryAcquirePermission();
+        boolean secondCaller = circuitBreaker.tryAcquirePermission();
+
+        //then
+        Assertions.assertTrue(probe);
+        Assertions.assertFalse(secondCaller);
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void shouldCloseWhenProbeSucceeds() {
+        //given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(1, Duration.ZERO);
+        circuitBreaker.onFailure();
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+
+        //when
+        circuitBreaker.onSuccess();
+
+        //then
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() {
+        //given
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMillis(50));
+        for (int i = 0; i < 3; i++) {
+            circuitBreaker.onFailure();
+        }
+        Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+        waitFor(Duration.ofMillis(100));
+        Assertions.assertTrue(circuitBreaker.tryAcquirePermission());
+
+        //when
+        circuitBreaker.onFailure();
+
+        //then
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        Assertions.assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    private static void waitFor(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.entity.RateSnapshot;
+import com.training.rledenev.service.CurrencyApiRequestService;
+import com.training.rledenev.service.ExchangeRateService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+
+class CurrencyProviderSelectionTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withUserConfiguration(CurrencyApiRequestServiceNBP.class, CurrencyApiRequestServiceFile.class,
+                    CurrencyApiRequestServiceSynthetic.class);
+
+    @Test
+    void shouldSelectNbpProviderByDefault() {
+        contextRunner.run(context -> Assertions.assertInstanceOf(CurrencyApiRequestServiceNBP.class,
+                context.getBean(CurrencyApiRequestService.class)));
+    }
+
+    @Test
+    void shouldSelectFileProviderAndServeLatestTableOnEveryFetch() {
+        contextRunner.withPropertyValues("bank.currency.provider=file",
+                        "bank.currency.file.location=classpath:rates/nbp-tables-a.json")
+                .run(context -> {
+                    //given
+                    CurrencyApiRequestService provider = context.getBean(CurrencyApiRequestService.class);
+
+                    //when
+                    RateSnapshot first = provider.getRatesTable();
+                    RateSnapshot second = provider.getRatesTable();
+
+                    //then
+                    Assertions.assertInstanceOf(CurrencyApiRequestServiceFile.class, provider);
+                    Assertions.assertEquals(LocalDate.of(2023, 10, 27), first.getEffectiveDate());
+                    Assertions.assertEquals(first.getVersion(), second.getVersion());
+                });
+    }
+
+    @Test
+    void shouldReplayFileTablesInOrderWhenReplayIsOn() {
+        contextRunner.withPropertyValues("bank.currency.provider=file",
+                        "bank.currency.file.location=classpath:rates/nbp-tables-a.json",
+                        "bank.currency.file.replay=true")
+                .run(context -> {
+                    //given
+                    CurrencyApiRequestService provider = context.getBean(CurrencyApiRequestService.class);
+
+                    //when
+                    LocalDate first = provider.getRatesTable().getEffectiveDate();
+                    LocalDate second = provider.getRatesTable().getEffectiveDate();
+                    LocalDate third = provider.getRatesTable().getEffectiveDate();
+
+                    //then
+                    Assertions.assertEquals(LocalDate.of(2023, 10, 26), first);
+                    Assertions.assertEquals(LocalDate.of(2023, 10, 27), second);
+                    Assertions.assertEquals(first, third);
+                });
+    }
+
+    @Test
+    void shouldSelectSyntheticProvider() {
+        contextRunner.withPropertyValues("bank.currency.provider=synthetic")
+                .run(context -> Assertions.assertInstanceOf(CurrencyApiRequestServiceSynthetic.class,
+                        context.getBean(CurrencyApiRequestService.class)));
+    }
+
+    @Test
+    void shouldPaySyntheticLatencyOnEveryLookupWhenCacheIsOff() {
+        Duration latency = Duration.ofMillis(50);
+        contextRunner.withUserConfiguration(CurrencyServiceNBP.class, CachingCurrencyService.class)
+                .withBean(ExchangeRateService.class, () -> mock(ExchangeRateService.class))
+                .withPropertyValues("bank.currency.provider=synthetic",
+                        "bank.currency.synthetic.latency=" + latency,
+                        "bank.currency.cache.enabled=false")
+                .run(context -> {
+                    //given
+                    CachingCurrencyService currencyService = context.getBean(CachingCurrencyService.class);
+
+                    //when
+                    long start = System.nanoTime();
+                    for (int i = 0; i < 3; i++) {
+                        currencyService.getRateSnapshot();
+                    }
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                    //then
+                    Assertions.assertTrue(elapsedMillis >= 3 * latency.toMillis(),
+                            "3 lookups took " + elapsedMillis + " ms");
+                });
+    }
+
+    @Test
+    void shouldNotPaySyntheticLatencyOnCachedLookups() {
+        Duration latency = Duration.ofMillis(200);
+        contextRunner.withUserConfiguration(CurrencyServiceNBP.class, CachingCurrencyService.class)
+                .withBean(ExchangeRateService.class, () -> mock(ExchangeRateService.class))
+                .withPropertyValues("bank.currency.provider=synthetic",
+                        "bank.currency.synthetic.latency=" + latency)
+                .run(context -> {
+                    //given
+                    CachingCurrencyService currencyService = context.getBean(CachingCurrencyService.class);
+                    currencyService.refreshRates();
+
+                    //when
+                    long start = System.nanoTime();
+                    for (int i = 0; i < 3; i++) {
+                        currencyService.getRateSnapshot();
+                    }
+                    long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+                    //then
+                    Assertions.assertTrue(elapsedMillis < latency.toMillis(), "3 lookups took " + elapsedMillis + " ms");
+                });
+    }
+}
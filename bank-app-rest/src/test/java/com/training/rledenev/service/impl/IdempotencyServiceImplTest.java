@@ -0,0 +1,74 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.IdempotencyKey;
+import com.training.rledenev.entity.Transaction;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.repository.IdempotencyKeyRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceImplTest {
+    private static final String KEY = "transfer-1";
+    private final IdempotencyKeyRepository idempotencyKeyRepository = mock(IdempotencyKeyRepository.class);
+    private final TransactionDto transactionDto = new TransactionDto();
+    private final User user = new User();
+    private IdempotencyServiceImpl idempotencyService;
+
+    @BeforeEach
+    void createService() {
+        user.setId(1L);
+        idempotencyService = new IdempotencyServiceImpl(idempotencyKeyRepository);
+        ReflectionTestUtils.setField(idempotencyService, "cacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(idempotencyService, "retention", Duration.ofHours(24));
+        idempotencyService.initCache();
+    }
+
+    @Test
+    void shouldServeRecentKeyFromCache() {
+        //given
+        mockStoredKey(LocalDateTime.now().minusHours(1));
+
+        //when
+        Optional<Long> first = idempotencyService.findTransactionId(user, KEY, transactionDto);
+        Optional<Long> second = idempotencyService.findTransactionId(user, KEY, transactionDto);
+
+        //then
+        Assertions.assertEquals(Optional.of(7L), first);
+        Assertions.assertEquals(Optional.of(7L), second);
+        verify(idempotencyKeyRepository, times(1)).findCompletedKey(1L, KEY);
+    }
+
+    @Test
+    void shouldNotCacheKeyPastItsRetention() {
+        //given
+        mockStoredKey(LocalDateTime.now().minusHours(25));
+
+        //when
+        idempotencyService.findTransactionId(user, KEY, transactionDto);
+        idempotencyService.findTransactionId(user, KEY, transactionDto);
+
+        //then
+        verify(idempotencyKeyRepository, times(2)).findCompletedKey(1L, KEY);
+    }
+
+    private void mockStoredKey(LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setId(7L);
+        IdempotencyKey idempotencyKey = new IdempotencyKey();
+        idempotencyKey.setUser(user);
+        idempotencyKey.setIdempotencyKey(KEY);
+        idempotencyKey.setRequestHash(idempotencyService.getRequestHash(transactionDto));
+        idempotencyKey.setTransaction(transaction);
+        idempotencyKey.setCreatedAt(createdAt);
+        when(idempotencyKeyRepository.findCompletedKey(1L, KEY)).thenReturn(Optional.of(idempotencyKey));
+    }
+}
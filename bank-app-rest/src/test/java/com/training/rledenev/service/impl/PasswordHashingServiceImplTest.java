@@ -0,0 +1,100 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.exception.TooManyRequestsException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceImplTest {
+    private final CountDownLatch hashingStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseHashing = new CountDownLatch(1);
+    private PasswordHashingServiceImpl passwordHashingService;
+
+    @AfterEach
+    void stopHashing() {
+        releaseHashing.countDown();
+        if (passwordHashingService != null) {
+            passwordHashingService.stopHashingExecutor();
+        }
+    }
+
+    @Test
+    void shouldRejectHashingWhenQueueIsFull() throws Exception {
+        //given
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            hashingStarted.countDown();
+            releaseHashing.await();
+            return "hash";
+        });
+        passwordHashingService = newPasswordHashingService(passwordEncoder, 1, 1);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("a"));
+        Assertions.assertTrue(hashingStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordHashingService.encode("b"));
+        waitUntilQueued(1);
+
+        //when
+        Assertions.assertThrows(TooManyRequestsException.class, () -> passwordHashingService.encode("c"));
+        releaseHashing.countDown();
+
+        //then
+        Assertions.assertEquals("hash", running.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("hash", queued.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldGiveUpAndCancelHashingPastWaitTimeout() throws Exception {
+        //given
+        CountDownLatch hashingInterrupted = new CountDownLatch(1);
+        PasswordEncoder passwordEncoder = mock(PasswordEncoder.class);
+        when(passwordEncoder.encode(any())).thenAnswer(invocation -> {
+            try {
+                releaseHashing.await();
+            } catch (InterruptedException e) {
+                hashingInterrupted.countDown();
+                throw e;
+            }
+            return "hash";
+        });
+        passwordHashingService = newPasswordHashingService(passwordEncoder, 1, 1);
+        ReflectionTestUtils.setField(passwordHashingService, "waitTimeout", Duration.ofMillis(100));
+
+        //when
+        Assertions.assertThrows(TooManyRequestsException.class, () -> passwordHashingService.encode("a"));
+
+        //then
+        Assertions.assertTrue(hashingInterrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    private void waitUntilQueued(int depth) throws InterruptedException {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor)
+                ReflectionTestUtils.getField(passwordHashingService, "hashingExecutor");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getQueue().size() < depth && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(depth, executor.getQueue().size());
+    }
+
+    private static PasswordHashingServiceImpl newPasswordHashingService(PasswordEncoder passwordEncoder,
+                                                                        int poolSize, int queueCapacity) {
+        PasswordHashingServiceImpl passwordHashingService = new PasswordHashingServiceImpl(passwordEncoder);
+        ReflectionTestUtils.setField(passwordHashingService, "poolSize", poolSize);
+        ReflectionTestUtils.setField(passwordHashingService, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(passwordHashingService, "waitTimeout", Duration.ofSeconds(5));
+        passwordHashingService.startHashingExecutor();
+        return passwordHashingService;
+    }
+}
@@ -0,0 +1,148 @@
+package com.training.rledenev.service.impl;
+
+import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.dto.TransactionResultDto;
+import com.training.rledenev.entity.Money;
+import com.training.rledenev.entity.User;
+import com.training.rledenev.repository.AccountRepository;
+import com.training.rledenev.repository.UserRepository;
+import com.training.rledenev.security.CustomUserDetails;
+import com.training.rledenev.service.TransactionService;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+// Writes hundreds of rows, more than one id block, so it needs id generators that have not seen a reset schema.
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@Sql("/database/schema-cleanup.sql")
+@Sql("/database/create_tables.sql")
+@Sql("/database/add_test_data.sql")
+class TransferLockingTest {
+    private static final String FIRST_ACCOUNT = "1234567890123456";
+    private static final String SECOND_ACCOUNT = "6123456789012345";
+    private static final int ROUNDS = 20;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void addMeterRegistry() {
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void removeMeterRegistry() {
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void shouldPostOppositeDirectionTransfersConcurrentlyWithoutDeadlock() throws Exception {
+        //given
+        User owner = userRepository.findByEmail("isabella.white@yopmail.com").orElseThrow();
+        Long firstAccountId = accountRepository.getByNumber(FIRST_ACCOUNT).orElseThrow().getId();
+        Long secondAccountId = accountRepository.getByNumber(SECOND_ACCOUNT).orElseThrow().getId();
+        BigDecimal firstBalance = accountRepository.getCurrentBalanceById(firstAccountId);
+        BigDecimal secondBalance = accountRepository.getCurrentBalanceById(secondAccountId);
+        Timer lockWaitTimer = meterRegistry.get("bank.account.lock.wait").timer();
+        long lockWaitsBefore = lockWaitTimer.count();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Callable<Void>> writers = List.of(
+                () -> postOneByOne(owner, start, FIRST_ACCOUNT, SECOND_ACCOUNT),
+                () -> postOneByOne(owner, start, SECOND_ACCOUNT, FIRST_ACCOUNT),
+                () -> postInBatches(owner, start, FIRST_ACCOUNT, SECOND_ACCOUNT),
+                () -> postInBatches(owner, start, SECOND_ACCOUNT, FIRST_ACCOUNT));
+        ExecutorService executor = Executors.newFixedThreadPool(writers.size());
+
+        //when
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (Callable<Void> writer : writers) {
+                results.add(executor.submit(writer));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                result.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        //then
+        // Every writer moves the same amount each way, so both balances end where they started.
+        Assertions.assertEquals(0, firstBalance.compareTo(accountRepository.getCurrentBalanceById(firstAccountId)));
+        Assertions.assertEquals(0, secondBalance.compareTo(accountRepository.getCurrentBalanceById(secondAccountId)));
+        // Single transfers alone take 4 * ROUNDS lock acquisitions; each batch chunk adds one more.
+        Assertions.assertTrue(lockWaitTimer.count() >= lockWaitsBefore + 4L * ROUNDS);
+    }
+
+    private Void postOneByOne(User owner, CountDownLatch start, String from, String to) throws InterruptedException {
+        CustomUserDetails userDetails = new CustomUserDetails(owner);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(userDetails,
+                null, userDetails.getAuthorities()));
+        try {
+            start.await();
+            for (int i = 0; i < ROUNDS; i++) {
+                transactionService.createTransaction(getTransactionDto(from, to));
+                transactionService.createTransaction(getTransactionDto(to, from));
+            }
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+        return null;
+    }
+
+    private Void postInBatches(User owner, CountDownLatch start, String from, String to) throws InterruptedException {
+        start.await();
+        for (int i = 0; i < ROUNDS; i++) {
+            // Each chunk debits both accounts, listed in the opposite order to the other batch writer.
+            List<TransactionDto> transactionDtos = List.of(getTransactionDto(from, to), getTransactionDto(to, from));
+            List<TransactionResultDto> results = transactionService.createTransactions(transactionDtos,
+                    Collections.nCopies(transactionDtos.size(), owner), chunkResults -> {
+                    });
+            for (TransactionResultDto result : results) {
+                Assertions.assertNull(result.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static TransactionDto getTransactionDto(String debitAccountNumber, String creditAccountNumber) {
+        TransactionDto transactionDto = new TransactionDto();
+        transactionDto.setDebitAccountNumber(debitAccountNumber);
+        transactionDto.setCreditAccountNumber(creditAccountNumber);
+        transactionDto.setCurrencyCode("USD");
+        transactionDto.setAmount(Money.of("1"));
+        transactionDto.setType("CASH");
+        transactionDto.setDescription("lock order");
+        return transactionDto;
+    }
+}
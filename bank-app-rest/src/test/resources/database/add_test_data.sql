@@ -24,13 +24,13 @@ VALUES
     ('Long-Term Deposit', 'DEPOSIT', 'BLOCKED', 4.0, 20000, 24, '2023-09-03 13:00:00', '2023-09-03 13:00:00'),
     ('Monthly Interest Payment Deposit', 'DEPOSIT', 'BLOCKED', 3.0, 25000, 36, '2023-09-03 13:00:00', '2023-09-03 13:00:00');
 
-INSERT INTO accounts (client_id, number, status, balance, currency_code, created_at, updated_at)
+INSERT INTO accounts (client_id, number, status, balance, currency_code, created_at, updated_at, snapshot_at)
 VALUES
-    (null, '1111111111111111', 'ACTIVE', 9999999999999.99, 'PLN', '2023-09-01 00:00:00', '2023-09-01 00:00:00'),
-    (1, '1234567890123456', 'ACTIVE', 15000, 'USD', '2023-09-04 13:57:40', '2023-09-04 13:57:40'),
-    (1, '6123456789012345', 'ACTIVE', 2000, 'USD', '2023-09-04 13:57:40', '2023-09-04 13:57:40'),
-    (2, '4561234567890123', 'NEW', 0, 'EUR', '2023-09-04 13:57:40', '2023-09-04 13:57:40'),
-    (2, '5612345678901234', 'NEW', 0, 'EUR', '2023-09-03 13:57:40', '2023-09-03 13:57:40');
+    (null, '1111111111111111', 'ACTIVE', 9999999999999.99, 'PLN', '2023-09-01 00:00:00', '2023-09-01 00:00:00', '2023-09-04 14:00:00'),
+    (1, '1234567890123456', 'ACTIVE', 15000, 'USD', '2023-09-04 13:57:40', '2023-09-04 13:57:40', '2023-09-04 14:00:00'),
+    (1, '6123456789012345', 'ACTIVE', 2000, 'USD', '2023-09-04 13:57:40', '2023-09-04 13:57:40', '2023-09-04 14:00:00'),
+    (2, '4561234567890123', 'NEW', 0, 'EUR', '2023-09-04 13:57:40', '2023-09-04 13:57:40', '2023-09-04 14:00:00'),
+    (2, '5612345678901234', 'NEW', 0, 'EUR', '2023-09-03 13:57:40', '2023-09-03 13:57:40', '2023-09-04 14:00:00');
 
 INSERT INTO agreements (account_id, product_id, manager_id, status, sum, start_date, created_at, updated_at)
 VALUES
@@ -43,4 +43,23 @@ INSERT INTO transactions (debit_account_id, credit_account_id, type, amount, cur
 VALUES
     (2, 3, 'CASH', 1037.58, 'USD', 1037, 1037, 'for ice cream', '2023-09-03 12:00:00'),
     (3, 4, 'CASH', 845.67, 'USD', 845, 845, 'for ice cream', '2023-09-03 12:00:00'),
-    (4, 5, 'CASH', 541.63, 'USD', 541, 541, 'for ice cream', '2023-09-03 12:00:00');
\ No newline at end of file
+    (4, 5, 'CASH', 541.63, 'USD', 541, 541, 'for ice cream', '2023-09-03 12:00:00');
+
+INSERT INTO ledger_entries (account_id, transaction_id, type, amount, created_at, snapshot_no)
+VALUES
+    (2, 1, 'DEBIT', -1037, '2023-09-03 12:00:00', 0),
+    (3, 1, 'CREDIT', 1037, '2023-09-03 12:00:00', 0),
+    (3, 2, 'DEBIT', -845, '2023-09-03 12:00:00', 0),
+    (4, 2, 'CREDIT', 845, '2023-09-03 12:00:00', 0),
+    (4, 3, 'DEBIT', -541, '2023-09-03 12:00:00', 0),
+    (5, 3, 'CREDIT', 541, '2023-09-03 12:00:00', 0);
+
+INSERT INTO id_generators (name, next_val)
+VALUES
+    ('accounts', 1000),
+    ('transactions', 1000),
+    ('ledger_entries', 1000),
+    ('idempotency_keys', 1000),
+    ('exchange_rates', 1000),
+    ('refresh_tokens', 1000),
+    ('async_transfers', 1000);
@@ -32,10 +32,12 @@ CREATE TABLE IF NOT EXISTS accounts
     client_id     int,
     number        varchar(28) UNIQUE,
     status        varchar(20),
-    balance       decimal(15, 2),
+    balance       decimal(19, 4),
     currency_code varchar(3),
     created_at    TIMESTAMP,
     updated_at    TIMESTAMP,
+    snapshot_at   TIMESTAMP,
+    snapshot_no   BIGINT NOT NULL DEFAULT 0,
     FOREIGN KEY (client_id) REFERENCES users (id)
 );
 
@@ -70,3 +72,86 @@ CREATE TABLE IF NOT EXISTS transactions
     FOREIGN KEY (debit_account_id) REFERENCES accounts (id),
     FOREIGN KEY (credit_account_id) REFERENCES accounts (id)
 );
+
+CREATE INDEX IF NOT EXISTS idx_transactions_debit_created ON transactions (debit_account_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_credit_created ON transactions (credit_account_id, created_at);
+
+CREATE TABLE IF NOT EXISTS ledger_entries
+(
+    id             BIGINT PRIMARY KEY AUTO_INCREMENT,
+    account_id     int            NOT NULL,
+    transaction_id int            NOT NULL,
+    type           varchar(10)    NOT NULL,
+    amount         decimal(19, 4) NOT NULL,
+    created_at     TIMESTAMP,
+    snapshot_no    BIGINT,
+    FOREIGN KEY (account_id) REFERENCES accounts (id),
+    FOREIGN KEY (transaction_id) REFERENCES transactions (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_account_created ON ledger_entries (account_id, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_snapshot_account ON ledger_entries (snapshot_no, account_id);
+
+CREATE TABLE IF NOT EXISTS idempotency_keys
+(
+    id              BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id         int         NOT NULL,
+    idempotency_key varchar(64) NOT NULL,
+    request_hash    varchar(44),
+    transaction_id  int,
+    created_at      TIMESTAMP,
+    UNIQUE (user_id, idempotency_key),
+    FOREIGN KEY (user_id) REFERENCES users (id),
+    FOREIGN KEY (transaction_id) REFERENCES transactions (id)
+);
+
+CREATE TABLE IF NOT EXISTS exchange_rates
+(
+    id             BIGINT PRIMARY KEY AUTO_INCREMENT,
+    currency_code  varchar(3)     NOT NULL,
+    effective_date DATE           NOT NULL,
+    rate           decimal(19, 6) NOT NULL,
+    fetched_at     TIMESTAMP,
+    UNIQUE (currency_code, effective_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_exchange_rates_effective_date ON exchange_rates (effective_date);
+
+CREATE TABLE IF NOT EXISTS id_generators
+(
+    name     varchar(64) PRIMARY KEY,
+    next_val bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS refresh_tokens
+(
+    id         BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id    int         NOT NULL,
+    token_hash varchar(64) NOT NULL,
+    created_at TIMESTAMP,
+    expires_at TIMESTAMP   NOT NULL,
+    revoked_at TIMESTAMP,
+    UNIQUE (token_hash),
+    FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE IF NOT EXISTS async_transfers
+(
+    id              BIGINT PRIMARY KEY AUTO_INCREMENT,
+    transfer_id     varchar(36)   NOT NULL,
+    user_id         int           NOT NULL,
+    idempotency_key varchar(64),
+    request_hash    varchar(44),
+    request         varchar(2048) NOT NULL,
+    status          varchar(20)   NOT NULL,
+    message         varchar(255),
+    created_at      TIMESTAMP,
+    updated_at      TIMESTAMP,
+    UNIQUE (transfer_id),
+    UNIQUE (user_id, idempotency_key),
+    FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_async_transfers_status_created ON async_transfers (status, created_at);
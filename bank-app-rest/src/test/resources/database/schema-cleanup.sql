@@ -1,3 +1,9 @@
+DROP TABLE IF EXISTS id_generators;
+DROP TABLE IF EXISTS async_transfers;
+DROP TABLE IF EXISTS refresh_tokens;
+DROP TABLE IF EXISTS exchange_rates;
+DROP TABLE IF EXISTS idempotency_keys;
+DROP TABLE IF EXISTS ledger_entries;
 DROP TABLE IF EXISTS transactions;
 DROP TABLE IF EXISTS agreements;
 DROP TABLE IF EXISTS accounts;
@@ -30,7 +30,7 @@ public class SecurityConfig {
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
                 .authorizeRequests()
-                .antMatchers("/auth", "/user/register",
+                .antMatchers("/auth", "/auth/token", "/auth/refresh", "/auth/revoke", "/user/register",
                         "/swagger-ui/**",  "/v3/api-docs/**", "/swagger-ui.html").permitAll()
                 .antMatchers("/**").authenticated()
                 .and()
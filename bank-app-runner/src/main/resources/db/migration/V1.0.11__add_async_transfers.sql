@@ -0,0 +1,20 @@
+CREATE TABLE IF NOT EXISTS async_transfers
+(
+    id              BIGINT PRIMARY KEY AUTO_INCREMENT,
+    transfer_id     varchar(36)   NOT NULL,
+    user_id         int           NOT NULL,
+    idempotency_key varchar(64)   NULL,
+    request_hash    varchar(44)   NULL,
+    request         varchar(2048) NOT NULL,
+    status          varchar(20)   NOT NULL,
+    message         varchar(255)  NULL,
+    created_at      TIMESTAMP     NULL,
+    updated_at      TIMESTAMP     NULL,
+    UNIQUE (transfer_id),
+    UNIQUE (user_id, idempotency_key),
+    INDEX idx_async_transfers_status_created (status, created_at),
+    FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+INSERT INTO id_generators (name, next_val)
+VALUES ('async_transfers', 50);
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS id_generators
+(
+    name     varchar(64) PRIMARY KEY,
+    next_val bigint NOT NULL
+);
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'accounts', COALESCE(MAX(id), 0) + 50
+FROM accounts;
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'transactions', COALESCE(MAX(id), 0) + 50
+FROM transactions;
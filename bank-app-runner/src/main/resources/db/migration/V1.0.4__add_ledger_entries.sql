@@ -0,0 +1,31 @@
+ALTER TABLE accounts
+    MODIFY balance decimal(19, 4),
+    ADD COLUMN snapshot_at TIMESTAMP NULL;
+
+CREATE TABLE IF NOT EXISTS ledger_entries
+(
+    id             BIGINT PRIMARY KEY AUTO_INCREMENT,
+    account_id     int            NOT NULL,
+    transaction_id int            NOT NULL,
+    type           varchar(10)    NOT NULL,
+    amount         decimal(19, 4) NOT NULL,
+    created_at     TIMESTAMP      NULL,
+    INDEX idx_ledger_entries_account_created (account_id, created_at),
+    FOREIGN KEY (account_id) REFERENCES accounts (id),
+    FOREIGN KEY (transaction_id) REFERENCES transactions (id)
+);
+
+INSERT INTO ledger_entries (account_id, transaction_id, type, amount, created_at)
+SELECT debit_account_id, id, 'DEBIT', -debit_balance_difference, created_at
+FROM transactions;
+
+INSERT INTO ledger_entries (account_id, transaction_id, type, amount, created_at)
+SELECT credit_account_id, id, 'CREDIT', credit_balance_difference, created_at
+FROM transactions;
+
+UPDATE accounts
+SET snapshot_at = CURRENT_TIMESTAMP;
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'ledger_entries', COALESCE(MAX(id), 0) + 50
+FROM ledger_entries;
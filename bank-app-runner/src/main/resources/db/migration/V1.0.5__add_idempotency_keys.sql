@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS idempotency_keys
+(
+    id              BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id         int         NOT NULL,
+    idempotency_key varchar(64) NOT NULL,
+    transaction_id  int,
+    created_at      TIMESTAMP   NULL,
+    UNIQUE (user_id, idempotency_key),
+    INDEX idx_idempotency_keys_created (created_at),
+    FOREIGN KEY (user_id) REFERENCES users (id),
+    FOREIGN KEY (transaction_id) REFERENCES transactions (id)
+);
+
+INSERT INTO id_generators (name, next_val)
+VALUES ('idempotency_keys', 50);
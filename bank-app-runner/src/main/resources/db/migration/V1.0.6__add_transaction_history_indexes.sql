@@ -0,0 +1,3 @@
+CREATE INDEX idx_transactions_debit_created ON transactions (debit_account_id, created_at);
+
+CREATE INDEX idx_transactions_credit_created ON transactions (credit_account_id, created_at);
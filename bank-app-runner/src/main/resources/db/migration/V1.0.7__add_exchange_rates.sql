@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS exchange_rates
+(
+    id             BIGINT PRIMARY KEY AUTO_INCREMENT,
+    currency_code  varchar(3)     NOT NULL,
+    effective_date DATE           NOT NULL,
+    rate           decimal(19, 6) NOT NULL,
+    fetched_at     TIMESTAMP      NULL,
+    UNIQUE (currency_code, effective_date),
+    INDEX idx_exchange_rates_effective_date (effective_date)
+);
+
+INSERT INTO id_generators (name, next_val)
+VALUES ('exchange_rates', 50);
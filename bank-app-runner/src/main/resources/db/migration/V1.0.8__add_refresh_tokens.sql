@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS refresh_tokens
+(
+    id         BIGINT PRIMARY KEY AUTO_INCREMENT,
+    user_id    int         NOT NULL,
+    token_hash varchar(64) NOT NULL,
+    created_at TIMESTAMP   NULL,
+    expires_at TIMESTAMP   NOT NULL,
+    revoked_at TIMESTAMP   NULL,
+    UNIQUE (token_hash),
+    INDEX idx_refresh_tokens_expires (expires_at),
+    FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+INSERT INTO id_generators (name, next_val)
+VALUES ('refresh_tokens', 50);
@@ -0,0 +1,11 @@
+ALTER TABLE accounts
+    ADD COLUMN snapshot_no BIGINT NOT NULL DEFAULT 0;
+
+ALTER TABLE ledger_entries
+    ADD COLUMN snapshot_no BIGINT NULL,
+    ADD INDEX idx_ledger_entries_snapshot_account (snapshot_no, account_id);
+
+UPDATE ledger_entries e JOIN accounts a ON a.id = e.account_id
+SET e.snapshot_no = 0
+WHERE a.snapshot_at IS NOT NULL
+  AND e.created_at <= a.snapshot_at;
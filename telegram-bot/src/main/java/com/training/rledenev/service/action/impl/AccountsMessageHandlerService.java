@@ -8,6 +8,7 @@ import com.training.rledenev.service.TransactionService;
 import com.training.rledenev.service.action.ActionMessageHandlerService;
 import com.training.rledenev.service.action.impl.transaction.TransactionMessageHandlerService;
 import com.training.rledenev.service.chatmaps.ChatIdAccountDtoMap;
+import com.training.rledenev.service.chatmaps.ChatIdIdempotencyKeyMap;
 import com.training.rledenev.service.chatmaps.ChatIdTransactionDtoMap;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -40,6 +41,7 @@ public class AccountsMessageHandlerService implements ActionMessageHandlerServic
                 ChatIdAccountDtoMap.remove(chatId);
                 CHAT_ID_IS_MAKING_TRANSACTION.remove(chatId);
                 ChatIdTransactionDtoMap.remove(chatId);
+                ChatIdIdempotencyKeyMap.remove(chatId);
                 return createSendMessageWithButtons(chatId, getMyAccountsMessage(accountDtos),
                         getMyAccountsButtons(accountDtos));
             }
@@ -105,11 +107,12 @@ public class AccountsMessageHandlerService implements ActionMessageHandlerServic
                                         String accountCurrency) {
         if (transactionDto.getCurrencyCode().equals(accountCurrency)) {
             stringBuilder.append(String.format(AMOUNT_IN_SAME_CURRENCY_DEBIT_TRANSACTION_INFO,
-                    transactionDto.getAmount(), transactionDto.getCurrencyCode(),
+                    transactionDto.getAmount().toBigDecimal(), transactionDto.getCurrencyCode(),
                     transactionDto.getCreditAccountNumber()));
         } else {
-            stringBuilder.append(String.format(AMOUNT_DEBIT_TRANSACTION_INFO, transactionDto.getAmount(),
-                    transactionDto.getCurrencyCode(), transactionDto.getDebitBalanceDifference(), accountCurrency,
+            stringBuilder.append(String.format(AMOUNT_DEBIT_TRANSACTION_INFO,
+                    transactionDto.getAmount().toBigDecimal(), transactionDto.getCurrencyCode(),
+                    transactionDto.getDebitBalanceDifference().toBigDecimal(), accountCurrency,
                     transactionDto.getCreditAccountNumber()));
         }
         appendAnotherInfo(stringBuilder, transactionDto);
@@ -119,11 +122,12 @@ public class AccountsMessageHandlerService implements ActionMessageHandlerServic
                                          String accountCurrency) {
         if (transactionDto.getCurrencyCode().equals(accountCurrency)) {
             stringBuilder.append(String.format(AMOUNT_IN_SAME_CURRENCY_CREDIT_TRANSACTION_INFO,
-                    transactionDto.getAmount(), transactionDto.getCurrencyCode(),
+                    transactionDto.getAmount().toBigDecimal(), transactionDto.getCurrencyCode(),
                     transactionDto.getDebitAccountNumber()));
         } else {
-            stringBuilder.append(String.format(AMOUNT_CREDIT_TRANSACTION_INFO, transactionDto.getAmount(),
-                    transactionDto.getCurrencyCode(), transactionDto.getCreditBalanceDifference(), accountCurrency,
+            stringBuilder.append(String.format(AMOUNT_CREDIT_TRANSACTION_INFO,
+                    transactionDto.getAmount().toBigDecimal(), transactionDto.getCurrencyCode(),
+                    transactionDto.getCreditBalanceDifference().toBigDecimal(), accountCurrency,
                     transactionDto.getDebitAccountNumber()));
         }
         appendAnotherInfo(stringBuilder, transactionDto);
@@ -139,7 +143,7 @@ public class AccountsMessageHandlerService implements ActionMessageHandlerServic
         LocalDate paymentTerm = accountDto.getPaymentTerm();
         return String.format(FULL_ACCOUNT_INFO, accountDto.getNumber(), accountDto.getOwner(),
                 accountDto.getProductName(), accountDto.getInterestRate(), startDate, startDate, startDate, paymentTerm,
-                paymentTerm, paymentTerm, accountDto.getBalance(), accountDto.getCurrencyName());
+                paymentTerm, paymentTerm, accountDto.getBalance().toBigDecimal(), accountDto.getCurrencyName());
     }
 
     private List<String> getMyAccountsButtons(List<AccountDto> accountDtos) {
@@ -156,7 +160,8 @@ public class AccountsMessageHandlerService implements ActionMessageHandlerServic
         for (int i = 0; i < accountDtos.size(); i++) {
             AccountDto accountDto = accountDtos.get(i);
             stringBuilder.append(String.format(SHORT_ACCOUNT_INFO, i + 1, accountDto.getNumber(),
-                            accountDto.getProductName(), accountDto.getBalance(), accountDto.getCurrencyCode()))
+                            accountDto.getProductName(), accountDto.getBalance().toBigDecimal(),
+                            accountDto.getCurrencyCode()))
                     .append("\n")
                     .append("\n");
         }
@@ -1,5 +1,6 @@
 package com.training.rledenev.service.action.impl;
 
+import com.training.rledenev.entity.RateSnapshot;
 import com.training.rledenev.entity.enums.CurrencyCode;
 import com.training.rledenev.entity.enums.Role;
 import com.training.rledenev.service.CurrencyService;
@@ -29,9 +30,11 @@ public class CurrencyRatesHandlerService implements ActionMessageHandlerService
             return createSendMessageWithButtons(chatId, SELECT_CURRENCY, currencyButtons);
         }
         if (currenciesWithoutDefaultCurrency.contains(message)) {
-            Double rate = currencyService.getRateOfCurrency(message).doubleValue();
-            String currencyName = CurrencyCode.valueOf(message).getCurrencyName();
-            LocalDate date = LocalDate.now();
+            CurrencyCode currencyCode = CurrencyCode.valueOf(message);
+            RateSnapshot rateSnapshot = currencyService.getRateSnapshot();
+            Double rate = rateSnapshot.getRate(currencyCode).doubleValue();
+            String currencyName = currencyCode.getCurrencyName();
+            LocalDate date = rateSnapshot.getEffectiveDate();
             return createSendMessageWithButtons(chatId, String.format(OFFICIAL_CURRENCY_RATE, currencyName,
                     date, date, date, rate, message), currencyButtons);
         }
@@ -2,15 +2,18 @@ package com.training.rledenev.service.action.impl.transaction.impl;
 
 import com.training.rledenev.dto.AccountDto;
 import com.training.rledenev.dto.TransactionDto;
+import com.training.rledenev.entity.Money;
 import com.training.rledenev.exception.InsufficientFundsException;
 import com.training.rledenev.service.TransactionService;
 import com.training.rledenev.service.action.impl.transaction.TransactionMessageHandlerService;
+import com.training.rledenev.service.chatmaps.ChatIdIdempotencyKeyMap;
 import com.training.rledenev.service.chatmaps.ChatIdTransactionDtoMap;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 
 import java.util.List;
+import java.util.UUID;
 
 import static com.training.rledenev.service.util.BotUtils.*;
 
@@ -32,6 +35,7 @@ public class TransactionMessageHandlerServiceImpl implements TransactionMessageH
         TransactionDto transactionDto = new TransactionDto();
         transactionDto.setDebitAccountNumber(accountDto.getNumber());
         ChatIdTransactionDtoMap.put(chatId, transactionDto);
+        ChatIdIdempotencyKeyMap.put(chatId, UUID.randomUUID().toString());
         return createSendMessage(chatId, ENTER_ACCOUNT_NUMBER);
     }
 
@@ -45,7 +49,7 @@ public class TransactionMessageHandlerServiceImpl implements TransactionMessageH
             return createNewTransactionMessage(chatId, transactionDto);
         }
         if (message.equals(CANCEL)) {
-            ChatIdTransactionDtoMap.remove(chatId);
+            removeTransactionFromMaps(chatId);
             return createSendMessageWithButtons(chatId, TRANSACTION_CANCELED, List.of(BACK_TO_LIST_ACCOUNTS));
         } else {
             return createSendMessageWithButtons(chatId, UNKNOWN_INPUT_MESSAGE, List.of(EXIT));
@@ -63,9 +67,9 @@ public class TransactionMessageHandlerServiceImpl implements TransactionMessageH
         }
         if (transactionDto.getAmount() == null) {
             try {
-                transactionDto.setAmount(Double.parseDouble(message));
+                transactionDto.setAmount(Money.of(message));
                 return createSendMessageWithButtons(chatId, SELECT_TYPE, getTypeButtons());
-            } catch (NumberFormatException e) {
+            } catch (NumberFormatException | ArithmeticException e) {
                 return createSendMessage(chatId, INCORRECT_NUMBER);
             }
         }
@@ -82,19 +86,27 @@ public class TransactionMessageHandlerServiceImpl implements TransactionMessageH
     }
 
     private SendMessage createNewTransactionMessage(long chatId, TransactionDto transactionDto) {
-        ChatIdTransactionDtoMap.remove(chatId);
         try {
-            transactionService.createTransaction(transactionDto);
+            transactionService.createTransaction(transactionDto, ChatIdIdempotencyKeyMap.get(chatId));
         } catch (InsufficientFundsException e) {
+            removeTransactionFromMaps(chatId);
             return createSendMessageWithButtons(chatId, INSUFFICIENT_FUNDS, List.of(BACK_TO_LIST_ACCOUNTS));
         } catch (RuntimeException e) {
-            return createSendMessageWithButtons(chatId, SOMETHING_WRONG, List.of(BACK_TO_LIST_ACCOUNTS));
+            // The transfer may have been posted anyway, so it is kept with its key and confirming again is a replay.
+            return createSendMessageWithButtons(chatId, SOMETHING_WRONG, List.of(CONFIRM, CANCEL));
         }
+        removeTransactionFromMaps(chatId);
         return createSendMessageWithButtons(chatId, TRANSACTION_COMPLETED, List.of(BACK_TO_LIST_ACCOUNTS));
     }
 
+    private static void removeTransactionFromMaps(long chatId) {
+        ChatIdTransactionDtoMap.remove(chatId);
+        ChatIdIdempotencyKeyMap.remove(chatId);
+    }
+
     private String getTransactionSummaryMessage(TransactionDto transactionDto) {
-        return String.format(TRANSACTION_INFO, transactionDto.getCreditAccountNumber(), transactionDto.getAmount(),
+        return String.format(TRANSACTION_INFO, transactionDto.getCreditAccountNumber(),
+                transactionDto.getAmount().toBigDecimal(),
                 transactionDto.getCurrencyCode(), transactionDto.getType(), transactionDto.getDescription());
     }
 }
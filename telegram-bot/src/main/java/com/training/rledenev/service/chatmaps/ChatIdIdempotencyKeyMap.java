@@ -0,0 +1,23 @@
+package com.training.rledenev.service.chatmaps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ChatIdIdempotencyKeyMap {
+    private static final Map<Long, String> CHAT_ID_IDEMPOTENCY_KEY_MAP = new ConcurrentHashMap<>();
+
+    private ChatIdIdempotencyKeyMap() {
+    }
+
+    public static void put(Long chatId, String idempotencyKey) {
+        CHAT_ID_IDEMPOTENCY_KEY_MAP.put(chatId, idempotencyKey);
+    }
+
+    public static String get(Long chatId) {
+        return CHAT_ID_IDEMPOTENCY_KEY_MAP.get(chatId);
+    }
+
+    public static void remove(Long chatId) {
+        CHAT_ID_IDEMPOTENCY_KEY_MAP.remove(chatId);
+    }
+}
@@ -0,0 +1,23 @@
+package com.training.rledenev.service.chatmaps;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public final class ChatIdRefreshTokenMap {
+    static final Map<Long, String> CHAT_ID_REFRESH_TOKEN_MAP = new ConcurrentHashMap<>();
+
+    private ChatIdRefreshTokenMap() {
+    }
+
+    public static void put(Long chatId, String refreshToken) {
+        CHAT_ID_REFRESH_TOKEN_MAP.put(chatId, refreshToken);
+    }
+
+    public static String get(Long chatId) {
+        return CHAT_ID_REFRESH_TOKEN_MAP.get(chatId);
+    }
+
+    public static void remove(Long chatId) {
+        CHAT_ID_REFRESH_TOKEN_MAP.remove(chatId);
+    }
+}
@@ -1,11 +1,15 @@
 package com.training.rledenev.service.impl;
 
+import com.training.rledenev.dto.TokenPairDto;
 import com.training.rledenev.entity.enums.Role;
+import com.training.rledenev.exception.AuthenticationException;
 import com.training.rledenev.security.UserProvider;
 import com.training.rledenev.security.jwt.JwtFilter;
 import com.training.rledenev.security.jwt.JwtProvider;
 import com.training.rledenev.service.AuthorizedUserService;
+import com.training.rledenev.service.RefreshTokenService;
 import com.training.rledenev.service.chatmaps.ChatIdActionNameMap;
+import com.training.rledenev.service.chatmaps.ChatIdRefreshTokenMap;
 import com.training.rledenev.service.chatmaps.ChatIdSecurityTokenMap;
 import com.training.rledenev.service.chatmaps.NameActionServiceMap;
 import lombok.RequiredArgsConstructor;
@@ -22,12 +26,15 @@ public class AuthorizedUserServiceImpl implements AuthorizedUserService {
     private final JwtProvider jwtProvider;
     private final JwtFilter jwtFilter;
     private final UserProvider userProvider;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     public SendMessage handleRequests(String message, long chatId, String token) {
-        if (jwtProvider.validateToken(token)) {
-            jwtFilter.setCustomUserDetailsToSecurityContextHolder(token);
-            Role userRole = userProvider.getCurrentUser().getRole();
+        // An expired access token is renewed silently while the chat still holds a valid refresh token.
+        String accessToken = jwtProvider.validateToken(token) ? token : renewAccessToken(chatId);
+        if (accessToken != null) {
+            jwtFilter.setCustomUserDetailsToSecurityContextHolder(accessToken);
+            Role userRole = userProvider.getCurrentUserDetails().getRole();
             if (message.equals(BACK)) {
                 removeIdFromMaps(chatId);
                 return createSendMessageWithButtons(chatId, SELECT_ACTION, getListOfActionsByUserRole(userRole));
@@ -42,8 +49,24 @@ public class AuthorizedUserServiceImpl implements AuthorizedUserService {
             return createSendMessageWithButtons(chatId, UNKNOWN_INPUT_MESSAGE, getListOfActionsByUserRole(userRole));
         } else {
             ChatIdSecurityTokenMap.remove(chatId);
+            ChatIdRefreshTokenMap.remove(chatId);
             removeIdFromMaps(chatId);
             return createSendMessageWithButtons(chatId, SESSION_CLOSED, List.of(REGISTER_USER, LOG_IN));
         }
     }
+
+    private String renewAccessToken(long chatId) {
+        String refreshToken = ChatIdRefreshTokenMap.get(chatId);
+        if (refreshToken == null) {
+            return null;
+        }
+        try {
+            TokenPairDto tokens = refreshTokenService.refreshTokens(refreshToken);
+            ChatIdSecurityTokenMap.put(chatId, tokens.getAccessToken());
+            ChatIdRefreshTokenMap.put(chatId, tokens.getRefreshToken());
+            return tokens.getAccessToken();
+        } catch (AuthenticationException e) {
+            return null;
+        }
+    }
 }
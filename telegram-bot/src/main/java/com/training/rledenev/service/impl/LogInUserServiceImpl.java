@@ -1,11 +1,14 @@
 package com.training.rledenev.service.impl;
 
+import com.training.rledenev.dto.TokenPairDto;
 import com.training.rledenev.entity.User;
 import com.training.rledenev.exception.AuthenticationException;
-import com.training.rledenev.security.jwt.JwtProvider;
+import com.training.rledenev.exception.TooManyRequestsException;
 import com.training.rledenev.service.LogInUserService;
+import com.training.rledenev.service.RefreshTokenService;
 import com.training.rledenev.service.UserService;
 import com.training.rledenev.service.chatmaps.ChatIdInLoginMap;
+import com.training.rledenev.service.chatmaps.ChatIdRefreshTokenMap;
 import com.training.rledenev.service.chatmaps.ChatIdSecurityTokenMap;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -22,7 +25,7 @@ import static com.training.rledenev.service.util.BotUtils.*;
 public class LogInUserServiceImpl implements LogInUserService {
     private static final Map<Long, String> CHAT_ID_EMAIL_MAP = new ConcurrentHashMap<>();
     private final UserService userService;
-    private final JwtProvider jwtProvider;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     public SendMessage handleLogInRequests(long chatId, String messageText) {
@@ -32,12 +35,15 @@ public class LogInUserServiceImpl implements LogInUserService {
                 user = userService.findByEmailAndPassword(CHAT_ID_EMAIL_MAP.get(chatId), messageText);
             } catch (AuthenticationException e) {
                 return createSendMessageWithButtons(chatId, AUTHENTICATION_FAILED, List.of(REGISTER_USER, LOG_IN));
+            } catch (TooManyRequestsException e) {
+                return createSendMessageWithButtons(chatId, AUTHENTICATION_BUSY, List.of(REGISTER_USER, LOG_IN));
             } finally {
                 CHAT_ID_EMAIL_MAP.remove(chatId);
                 ChatIdInLoginMap.put(chatId, false);
             }
-            String token = jwtProvider.generateToken(user.getEmail());
-            ChatIdSecurityTokenMap.put(chatId, token);
+            TokenPairDto tokens = refreshTokenService.issueTokens(user);
+            ChatIdSecurityTokenMap.put(chatId, tokens.getAccessToken());
+            ChatIdRefreshTokenMap.put(chatId, tokens.getRefreshToken());
             return createSendMessageWithButtons(chatId, String.format(AUTHENTICATION_COMPLETED,
                     user.getFirstName(), user.getLastName()) + SELECT_ACTION, getListOfActionsByUserRole(user.getRole()));
         } else {
@@ -1,6 +1,7 @@
 package com.training.rledenev.service.impl;
 
 import com.training.rledenev.dto.UserDto;
+import com.training.rledenev.exception.TooManyRequestsException;
 import com.training.rledenev.exception.UserAlreadyExistsException;
 import com.training.rledenev.service.RegistrationUserService;
 import com.training.rledenev.service.UserService;
@@ -102,7 +103,7 @@ public class RegistrationUserServiceImpl implements RegistrationUserService {
             userDto.setPassword(messageText);
             try {
                 userService.saveNewClient(userDto);
-            } catch (UserAlreadyExistsException exception) {
+            } catch (UserAlreadyExistsException | TooManyRequestsException exception) {
                 return createSendMessageWithButtons(chatId, String.format(REGISTRATION_FAILED, exception.getMessage()),
                         List.of(REGISTER_USER, LOG_IN));
             } finally {
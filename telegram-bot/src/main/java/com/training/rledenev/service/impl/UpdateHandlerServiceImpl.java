@@ -2,10 +2,12 @@ package com.training.rledenev.service.impl;
 
 import com.training.rledenev.service.AuthorizedUserService;
 import com.training.rledenev.service.LogInUserService;
+import com.training.rledenev.service.RefreshTokenService;
 import com.training.rledenev.service.RegistrationUserService;
 import com.training.rledenev.service.UpdateHandlerService;
 import com.training.rledenev.service.chatmaps.ChatIdInLoginMap;
 import com.training.rledenev.service.chatmaps.ChatIdInRegistrationMap;
+import com.training.rledenev.service.chatmaps.ChatIdRefreshTokenMap;
 import com.training.rledenev.service.chatmaps.ChatIdSecurityTokenMap;
 import com.training.rledenev.service.util.BotUtils;
 import lombok.RequiredArgsConstructor;
@@ -23,6 +25,7 @@ public class UpdateHandlerServiceImpl implements UpdateHandlerService {
     private final RegistrationUserService registrationUserService;
     private final LogInUserService logInUserService;
     private final AuthorizedUserService authorizedUserService;
+    private final RefreshTokenService refreshTokenService;
 
     @Override
     public SendMessage handleUpdate(Update update) {
@@ -31,6 +34,8 @@ public class UpdateHandlerServiceImpl implements UpdateHandlerService {
             String messageText = update.getMessage().getText();
             if (messageText.equals(EXIT)) {
                 ChatIdSecurityTokenMap.remove(chatId);
+                refreshTokenService.revokeToken(ChatIdRefreshTokenMap.get(chatId));
+                ChatIdRefreshTokenMap.remove(chatId);
                 removeIdFromMaps(chatId);
             }
             if (Boolean.TRUE.equals(ChatIdInRegistrationMap.get(chatId))) {
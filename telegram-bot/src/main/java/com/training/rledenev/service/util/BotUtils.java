@@ -54,6 +54,8 @@ public final class BotUtils {
             + "Please, try again:";
     public static final String AUTHENTICATION_FAILED = "Email or password is incorrect." + "\n"
             + "Please, try again:";
+    public static final String AUTHENTICATION_BUSY = "Too many log ins are in progress right now." + "\n"
+            + "Please, try again later:";
     public static final String AUTHENTICATION_COMPLETED = "Good afternoon %s %s!" + "\n";
     public static final String SELECT_ACTION = "Select action:";
     public static final String SESSION_CLOSED = "Session was expired, please log in";
@@ -144,6 +146,7 @@ public final class BotUtils {
         ChatIdAgreementIdMap.remove(chatId);
         ChatIdAccountDtoMap.remove(chatId);
         ChatIdTransactionDtoMap.remove(chatId);
+        ChatIdIdempotencyKeyMap.remove(chatId);
     }
 
     public static SendMessage createSendMessage(Long chatId, String textToSend) {